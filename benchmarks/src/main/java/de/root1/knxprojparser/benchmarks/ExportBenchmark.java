@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2016 Alexander Christian <alex(at)root1.de>. All rights reserved.
+ * 
+ * This file is part of KnxProjParser.
+ *
+ *   KnxProjParser is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   KnxProjParser is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with KnxProjParser.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.root1.knxprojparser.benchmarks;
+
+import de.root1.knxprojparser.KnxProjParser;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link KnxProjParser#exportXml(java.io.File, java.io.File)} of an already
+ * parsed project. The output file is deleted before each invocation, so every
+ * call writes a new file instead of returning early on a matching checksum.
+ *
+ * @author achristian
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExportBenchmark {
+
+    @Param({Samples.ETS4_2_0, Samples.ETS5_0_8, Samples.ETS5_5_1})
+    public String sample;
+
+    private File file;
+    private File out;
+    private KnxProjParser parser;
+
+    @Setup
+    public void setup() throws Exception {
+        file = Samples.get(sample, true);
+        out = File.createTempFile("ExportBenchmark", ".xml");
+        parser = new KnxProjParser();
+        parser.parse(file);
+    }
+
+    @Setup(Level.Invocation)
+    public void deleteOut() {
+        out.delete();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        out.delete();
+    }
+
+    @Benchmark
+    public boolean exportXml() throws Exception {
+        return parser.exportXml(file, out);
+    }
+
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2016 Alexander Christian <alex(at)root1.de>. All rights reserved.
+ * 
+ * This file is part of KnxProjParser.
+ *
+ *   KnxProjParser is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   KnxProjParser is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with KnxProjParser.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.root1.knxprojparser.benchmarks;
+
+import java.io.File;
+
+/**
+ * Locates the ETS sample projects of the parser module. The directory can be
+ * changed with system property <code>knxproj.samples</code>, default is
+ * <code>../src/test/resources/ETS-Samples</code>, relative to the benchmarks
+ * module.
+ *
+ * @author achristian
+ */
+public class Samples {
+
+    public static final String ETS4_2_0 = "ETS4.2.0";
+    public static final String ETS5_0_8 = "ETS5.0.8";
+    public static final String ETS5_5_1 = "ETS5.5.1";
+
+    private Samples() {
+    }
+
+    public static File getDirectory() {
+        return new File(System.getProperty("knxproj.samples", "../src/test/resources/ETS-Samples"));
+    }
+
+    /**
+     * @param sample f.i. {@link #ETS5_5_1}
+     * @param knxproj true for the .knxproj file, false for the extracted
+     * folder
+     * @return sample file or folder
+     */
+    public static File get(String sample, boolean knxproj) {
+        File file = new File(getDirectory(), sample + "-KnxProjParser-ExampleProject" + (knxproj ? ".knxproj" : ""));
+        if (!file.exists()) {
+            throw new IllegalStateException("Sample not found: " + file.getAbsolutePath() + ". Set -Dknxproj.samples=<dir>");
+        }
+        return file;
+    }
+
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2016 Alexander Christian <alex(at)root1.de>. All rights reserved.
+ * 
+ * This file is part of KnxProjParser.
+ *
+ *   KnxProjParser is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   KnxProjParser is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with KnxProjParser.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.root1.knxprojparser.benchmarks;
+
+import de.root1.knxprojparser.KnxProjParser;
+import de.root1.knxprojparser.Project;
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * End to end parse of generated projects, see
+ * {@link SyntheticProjectGenerator}. Shows how parse time scales with the
+ * number of group addresses, devices and application programs.
+ *
+ * @author achristian
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SyntheticParseBenchmark {
+
+    @Param({"1000", "10000"})
+    public int groupAddresses;
+
+    @Param({"100", "500"})
+    public int devices;
+
+    @Param({"20"})
+    public int applicationPrograms;
+
+    private File file;
+
+    @Setup
+    public void setup() throws Exception {
+        file = File.createTempFile("SyntheticParseBenchmark", ".knxproj");
+        new SyntheticProjectGenerator()
+                .setGroupAddressCount(groupAddresses)
+                .setDeviceCount(devices)
+                .setApplicationProgramCount(applicationPrograms)
+                .generate(file);
+    }
+
+    @TearDown
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public Project parse() throws Exception {
+        KnxProjParser parser = new KnxProjParser();
+        parser.parse(file);
+        return parser.getProject();
+    }
+
+}
@@ -0,0 +1,288 @@
+/*
+ * Copyright (C) 2016 Alexander Christian <alex(at)root1.de>. All rights reserved.
+ * 
+ * This file is part of KnxProjParser.
+ *
+ *   KnxProjParser is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   KnxProjParser is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with KnxProjParser.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.root1.knxprojparser.benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Generates synthetic .knxproj files of arbitrary size, for benchmarks which
+ * have to show how the parser scales beyond the small ETS samples.
+ * <p>
+ * The project uses schema http://knx.org/xml/project/13. project.xml and 0.xml
+ * are valid against the schema, the application programs only contain what
+ * the parser reads, plus a configurable number of parameters to get
+ * realistic file sizes. Every device has the same number of group objects,
+ * each connected to one group address. Half of the ComObjectRefs define their
+ * own DPT, the other half inherit it from the ComObject.
+ *
+ * @author achristian
+ */
+public class SyntheticProjectGenerator {
+
+    private static final String NAMESPACE = "http://knx.org/xml/project/13";
+    private static final String PROJECT_ID = "P-0001";
+    private static final String MANUFACTURER_ID = "M-00FA";
+    private static final String[] DPTS = {"DPST-1-1", "DPST-3-7", "DPST-5-1", "DPST-9-1", "DPST-14-68", "DPT-7"};
+    private static final int DEVICES_PER_LINE = 250;
+
+    private int groupAddressCount = 1000;
+    private int deviceCount = 100;
+    private int applicationProgramCount = 10;
+    private int comObjectsPerDevice = 16;
+    private int parametersPerApplicationProgram = 2000;
+
+    public SyntheticProjectGenerator setGroupAddressCount(int groupAddressCount) {
+        if (groupAddressCount < 1 || groupAddressCount > 0xFFFF) {
+            throw new IllegalArgumentException("groupAddressCount must be 1..65535");
+        }
+        this.groupAddressCount = groupAddressCount;
+        return this;
+    }
+
+    public SyntheticProjectGenerator setDeviceCount(int deviceCount) {
+        this.deviceCount = deviceCount;
+        return this;
+    }
+
+    public SyntheticProjectGenerator setApplicationProgramCount(int applicationProgramCount) {
+        if (applicationProgramCount < 1) {
+            throw new IllegalArgumentException("applicationProgramCount must be > 0");
+        }
+        this.applicationProgramCount = applicationProgramCount;
+        return this;
+    }
+
+    public SyntheticProjectGenerator setComObjectsPerDevice(int comObjectsPerDevice) {
+        this.comObjectsPerDevice = comObjectsPerDevice;
+        return this;
+    }
+
+    public SyntheticProjectGenerator setParametersPerApplicationProgram(int parametersPerApplicationProgram) {
+        this.parametersPerApplicationProgram = parametersPerApplicationProgram;
+        return this;
+    }
+
+    /**
+     * Writes the project as .knxproj (zip) file
+     *
+     * @param knxprojFile target file, overwritten if it exists
+     * @throws IOException
+     */
+    public void generate(File knxprojFile) throws IOException {
+        try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(knxprojFile))) {
+            Writer w = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8), 64 * 1024);
+
+            zip.putNextEntry(new ZipEntry("knx_master.xml"));
+            writeMaster(w);
+            w.flush();
+            zip.closeEntry();
+
+            zip.putNextEntry(new ZipEntry(PROJECT_ID + "/project.xml"));
+            writeProject(w);
+            w.flush();
+            zip.closeEntry();
+
+            zip.putNextEntry(new ZipEntry(PROJECT_ID + "/0.xml"));
+            writeInstallation(w);
+            w.flush();
+            zip.closeEntry();
+
+            for (int a = 0; a < applicationProgramCount; a++) {
+                zip.putNextEntry(new ZipEntry(MANUFACTURER_ID + "/" + applicationProgramId(a) + ".xml"));
+                writeApplicationProgram(w, a);
+                w.flush();
+                zip.closeEntry();
+            }
+        }
+    }
+
+    private static String applicationProgramId(int a) {
+        return String.format("%s_A-%04X-10-0000", MANUFACTURER_ID, a);
+    }
+
+    private static String groupAddressId(int g) {
+        return PROJECT_ID + "-0_GA-" + (g + 1);
+    }
+
+    private static void writeHeader(Writer w) throws IOException {
+        w.write("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n");
+    }
+
+    private void writeMaster(Writer w) throws IOException {
+        // parser only reads the namespace of knx_master.xml
+        writeHeader(w);
+        w.write("<KNX xmlns=\"" + NAMESPACE + "\">\n");
+        w.write("  <MasterData Id=\"MD-1\" Version=\"451\" />\n");
+        w.write("</KNX>\n");
+    }
+
+    private void writeProject(Writer w) throws IOException {
+        writeHeader(w);
+        w.write("<KNX CreatedBy=\"ETS5\" ToolVersion=\"5.5.575.15318\" xmlns=\"" + NAMESPACE + "\">\n");
+        w.write("  <Project Id=\"" + PROJECT_ID + "\">\n");
+        w.write("    <ProjectInformation Name=\"Synthetic-" + groupAddressCount + "GA-" + deviceCount + "D\" "
+                + "LastModified=\"2019-05-29T10:00:00\" ProjectStart=\"2019-05-29T09:00:00\" ProjectId=\"1\" "
+                + "GroupAddressStyle=\"ThreeLevel\" />\n");
+        w.write("  </Project>\n");
+        w.write("</KNX>\n");
+    }
+
+    private void writeInstallation(Writer w) throws IOException {
+        writeHeader(w);
+        w.write("<KNX CreatedBy=\"ETS5\" ToolVersion=\"5.5.575.15318\" xmlns=\"" + NAMESPACE + "\">\n");
+        w.write("  <Project Id=\"" + PROJECT_ID + "\">\n");
+        w.write("    <Installations>\n");
+        w.write("      <Installation InstallationId=\"0\" Name=\"\" BCUKey=\"4294967295\">\n");
+        w.write("        <Topology>\n");
+        w.write("          <Area Id=\"" + PROJECT_ID + "-0_A-1\" Name=\"Area\" Address=\"1\">\n");
+
+        int lines = (deviceCount + DEVICES_PER_LINE - 1) / DEVICES_PER_LINE;
+        int connection = 0;
+        for (int l = 0; l < lines; l++) {
+            w.write("            <Line Id=\"" + PROJECT_ID + "-0_L-" + (l + 1) + "\" Name=\"Line " + (l + 1)
+                    + "\" Address=\"" + (l + 1) + "\" MediumTypeRefId=\"MT-0\">\n");
+            for (int d = l * DEVICES_PER_LINE; d < Math.min(deviceCount, (l + 1) * DEVICES_PER_LINE); d++) {
+                String appId = applicationProgramId(d % applicationProgramCount);
+                w.write("              <DeviceInstance Id=\"" + PROJECT_ID + "-0_DI-" + (d + 1)
+                        + "\" ProductRefId=\"" + MANUFACTURER_ID + "_H-1_P-1\" Hardware2ProgramRefId=\"" + MANUFACTURER_ID
+                        + "_H-1_HP-" + appId.substring(MANUFACTURER_ID.length() + 3) + "\" Address=\""
+                        + (d % DEVICES_PER_LINE + 1) + "\">\n");
+                w.write("                <ComObjectInstanceRefs>\n");
+                for (int o = 0; o < comObjectsPerDevice; o++) {
+                    w.write("                  <ComObjectInstanceRef RefId=\"" + appId + "_O-" + o + "_R-" + o + "\" IsActive=\"1\">\n");
+                    w.write("                    <Connectors>\n");
+                    w.write("                      <Send GroupAddressRefId=\"" + groupAddressId(connection++ % groupAddressCount) + "\" />\n");
+                    w.write("                    </Connectors>\n");
+                    w.write("                  </ComObjectInstanceRef>\n");
+                }
+                w.write("                </ComObjectInstanceRefs>\n");
+                w.write("              </DeviceInstance>\n");
+            }
+            w.write("            </Line>\n");
+        }
+        w.write("          </Area>\n");
+        w.write("        </Topology>\n");
+
+        // group addresses, starting at 1/0/0: 2048 per main group, 256 per middle group
+        w.write("        <GroupAddresses>\n");
+        w.write("          <GroupRanges>\n");
+        int range = 0;
+        for (int g = 0; g < groupAddressCount; g++) {
+            int address = 2048 + g;
+            if (g == 0 || address % 2048 == 0) {
+                if (g > 0) {
+                    w.write("              </GroupRange>\n");
+                    w.write("            </GroupRange>\n");
+                }
+                int start = address & ~2047;
+                w.write("            <GroupRange Id=\"" + PROJECT_ID + "-0_GR-" + (++range) + "\" Name=\"Main " + (start >> 11)
+                        + "\" RangeStart=\"" + start + "\" RangeEnd=\"" + (start + 2047) + "\">\n");
+            }
+            if (g == 0 || address % 256 == 0) {
+                if (g > 0 && address % 2048 != 0) {
+                    w.write("              </GroupRange>\n");
+                }
+                int start = address & ~255;
+                w.write("              <GroupRange Id=\"" + PROJECT_ID + "-0_GR-" + (++range) + "\" Name=\"Middle " + ((start >> 8) & 7)
+                        + "\" RangeStart=\"" + start + "\" RangeEnd=\"" + (start + 255) + "\">\n");
+            }
+            w.write("                <GroupAddress Id=\"" + groupAddressId(g) + "\" Address=\"" + address + "\" Name=\"GA " + g + "\" />\n");
+        }
+        w.write("              </GroupRange>\n");
+        w.write("            </GroupRange>\n");
+        w.write("          </GroupRanges>\n");
+        w.write("        </GroupAddresses>\n");
+        w.write("      </Installation>\n");
+        w.write("    </Installations>\n");
+        w.write("  </Project>\n");
+        w.write("</KNX>\n");
+    }
+
+    private void writeApplicationProgram(Writer w, int a) throws IOException {
+        String appId = applicationProgramId(a);
+        writeHeader(w);
+        w.write("<KNX xmlns=\"" + NAMESPACE + "\">\n");
+        w.write("  <ManufacturerData>\n");
+        w.write("    <Manufacturer RefId=\"" + MANUFACTURER_ID + "\">\n");
+        w.write("      <ApplicationPrograms>\n");
+        w.write("        <ApplicationProgram Id=\"" + appId + "\" ApplicationNumber=\"" + a + "\" ApplicationVersion=\"16\" Name=\"App " + a + "\">\n");
+        w.write("          <Static>\n");
+        w.write("            <Parameters>\n");
+        for (int p = 0; p < parametersPerApplicationProgram; p++) {
+            w.write("              <Parameter Id=\"" + appId + "_P-" + p + "\" Name=\"Parameter" + p
+                    + "\" ParameterType=\"" + appId + "_PT-1\" Text=\"Synthetic parameter " + p + "\" Value=\"0\" />\n");
+        }
+        w.write("            </Parameters>\n");
+        w.write("            <ComObjectTable>\n");
+        for (int o = 0; o < comObjectsPerDevice; o++) {
+            w.write("              <ComObject Id=\"" + appId + "_O-" + o + "\" Name=\"Object " + o + "\" Number=\"" + o
+                    + "\" DatapointType=\"" + DPTS[o % DPTS.length] + "\" />\n");
+        }
+        w.write("            </ComObjectTable>\n");
+        w.write("            <ComObjectRefs>\n");
+        for (int o = 0; o < comObjectsPerDevice; o++) {
+            w.write("              <ComObjectRef Id=\"" + appId + "_O-" + o + "_R-" + o + "\" RefId=\"" + appId + "_O-" + o + "\"");
+            if (o % 2 == 1) {
+                w.write(" DatapointType=\"" + DPTS[(o + 1) % DPTS.length] + "\"");
+            }
+            w.write(" />\n");
+        }
+        w.write("            </ComObjectRefs>\n");
+        w.write("          </Static>\n");
+        w.write("          <Dynamic />\n");
+        w.write("        </ApplicationProgram>\n");
+        w.write("      </ApplicationPrograms>\n");
+        w.write("    </Manufacturer>\n");
+        w.write("  </ManufacturerData>\n");
+        w.write("</KNX>\n");
+    }
+
+    /**
+     * Usage: SyntheticProjectGenerator &lt;out.knxproj&gt; [groupAddresses]
+     * [devices] [applicationPrograms]
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: SyntheticProjectGenerator <out.knxproj> [groupAddresses] [devices] [applicationPrograms]");
+            System.exit(1);
+        }
+        SyntheticProjectGenerator generator = new SyntheticProjectGenerator();
+        if (args.length > 1) {
+            generator.setGroupAddressCount(Integer.parseInt(args[1]));
+        }
+        if (args.length > 2) {
+            generator.setDeviceCount(Integer.parseInt(args[2]));
+        }
+        if (args.length > 3) {
+            generator.setApplicationProgramCount(Integer.parseInt(args[3]));
+        }
+        File out = new File(args[0]);
+        generator.generate(out);
+        System.out.println("Written " + out.getAbsolutePath() + " (" + out.length() + " bytes)");
+    }
+
+}
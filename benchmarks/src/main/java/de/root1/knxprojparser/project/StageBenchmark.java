@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2016 Alexander Christian <alex(at)root1.de>. All rights reserved.
+ * 
+ * This file is part of KnxProjParser.
+ *
+ *   KnxProjParser is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   KnxProjParser is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with KnxProjParser.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.root1.knxprojparser.project;
+
+import de.root1.knxprojparser.benchmarks.Samples;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Isolated stages of the parse pipeline. Lives in the parser's package to
+ * reach the package private stages of {@link AbstractKnxParser}. Sorting is
+ * measured by {@link SortBenchmark}.
+ *
+ * @author achristian
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StageBenchmark {
+
+    @Param({Samples.ETS4_2_0, Samples.ETS5_0_8, Samples.ETS5_5_1})
+    public String sample;
+
+    private File file;
+    private ProjectSource source;
+    private AbstractKnxParser<?> parser;
+    private String projectFolder;
+    private Topology topology;
+
+    @Setup
+    public void setup() throws Exception {
+        file = Samples.get(sample, true);
+        source = ProjectSource.open(file);
+        parser = createParser(source);
+        projectFolder = source.getFolders("P-").get(0);
+        topology = readTopology();
+    }
+
+    static AbstractKnxParser<?> createParser(ProjectSource source) throws Exception {
+        String namespace = source.getNamespace();
+        switch (namespace) {
+            case "http://knx.org/xml/project/11":
+                return new Project11(source);
+            case "http://knx.org/xml/project/12":
+                return new Project12(source);
+            case "http://knx.org/xml/project/13":
+                return new Project13(source);
+            case "http://knx.org/xml/project/14":
+                return new Project14(source);
+            default:
+                throw new IllegalStateException("Unsupported namespace " + namespace);
+        }
+    }
+
+    private Topology readTopology() throws Exception {
+        Topology t = new Topology();
+        parser.readInstallation(projectFolder + "/0.xml", t);
+        return t;
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        source.close();
+    }
+
+    /**
+     * Opens the .knxproj file and inflates all entries
+     */
+    @Benchmark
+    public long zipExtraction() throws IOException {
+        long size = 0;
+        byte[] buffer = new byte[64 * 1024];
+        try (ProjectSource zip = ProjectSource.open(file)) {
+            for (String entry : zip.getEntries()) {
+                try (InputStream in = zip.getInputStream(entry)) {
+                    int numRead;
+                    while ((numRead = in.read(buffer)) != -1) {
+                        size += numRead;
+                    }
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Opens the .knxproj file and reads the namespace of knx_master.xml
+     */
+    @Benchmark
+    public String versionDetection() throws IOException {
+        try (ProjectSource zip = ProjectSource.open(file)) {
+            return zip.getNamespace();
+        }
+    }
+
+    /**
+     * Unmarshals project.xml, including schema validation
+     */
+    @Benchmark
+    public void projectUnmarshal(Blackhole bh) throws Exception {
+        String projectFile = projectFolder + "/project.xml";
+        if (!source.contains(projectFile)) {
+            projectFile = projectFolder + "/Project.xml";
+        }
+        bh.consume(parser.readRoot(projectFile));
+    }
+
+    /**
+     * Validates and streams 0.xml into a new topology
+     */
+    @Benchmark
+    public Topology installation() throws Exception {
+        return readTopology();
+    }
+
+    /**
+     * Reads all referenced manufacturer files
+     */
+    @Benchmark
+    public Map<String, String> manufacturerFiles() throws Exception {
+        return parser.readManufacturerFiles(topology);
+    }
+
+}
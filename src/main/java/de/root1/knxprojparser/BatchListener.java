@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2016 Alexander Christian <alex(at)root1.de>. All rights reserved.
+ * 
+ * This file is part of KnxProjParser.
+ *
+ *   KnxProjParser is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   KnxProjParser is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with KnxProjParser.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.root1.knxprojparser;
+
+import java.io.File;
+
+/**
+ * Receives the result of each project of a batch, see
+ * {@link KnxProjParser#parseAll(java.util.Collection, int, de.root1.knxprojparser.BatchListener)}.
+ * Methods are called from the batch worker threads as soon as a project is
+ * done, so implementations have to be thread safe.
+ *
+ * @author achristian
+ */
+public interface BatchListener {
+
+    /**
+     * Called when a project was parsed successfully
+     *
+     * @param file .knxproj file or folder with extracted project
+     * @param parser parser holding project and report of this file
+     */
+    void parsed(File file, KnxProjParser parser);
+
+    /**
+     * Called when a project could not be parsed. The batch continues with
+     * the remaining projects.
+     *
+     * @param file .knxproj file or folder with extracted project
+     * @param ex cause
+     */
+    void failed(File file, Exception ex);
+
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) 2016 Alexander Christian <alex(at)root1.de>. All rights reserved.
+ * 
+ * This file is part of KnxProjParser.
+ *
+ *   KnxProjParser is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   KnxProjParser is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with KnxProjParser.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.root1.knxprojparser;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Datapoint type, f.i. 1.001 (DPST-1-1, switch). Instances are flyweights:
+ * there is only one instance per main/sub number, so they can be compared
+ * with <code>==</code>, and the textual form returned by {@link #getId()} is
+ * the same String instance for all occurrences.
+ * <p>
+ * Each distinct DPT token found in project or manufacturer files is parsed
+ * only once. Lookups of known tokens don't lock, so the registry can be used
+ * by concurrent parser threads.
+ *
+ * @author achristian
+ */
+public final class Dpt {
+
+    /**
+     * token as found in xml, f.i. DPST-5-1 -> DPT
+     */
+    private static final ConcurrentMap<String, Dpt> TOKEN_MAP = new ConcurrentHashMap<>();
+
+    /**
+     * main << 16 | sub -> DPT
+     */
+    private static final ConcurrentMap<Integer, Dpt> NUMBER_MAP = new ConcurrentHashMap<>();
+
+    /**
+     * used when DPT is not set or not known, 0.000
+     */
+    public static final Dpt UNKNOWN = valueOf(0, 0);
+
+    private final int mainType;
+    private final int subType;
+    private final String id;
+
+    private Dpt(int mainType, int subType) {
+        this.mainType = mainType;
+        this.subType = subType;
+        // no DecimalFormat here: DPTs are created from concurrent parser threads
+        if (subType < 10) {
+            id = mainType + ".00" + subType;
+        } else if (subType < 100) {
+            id = mainType + ".0" + subType;
+        } else {
+            id = mainType + "." + subType;
+        }
+    }
+
+    /**
+     * Returns the DPT for the given main and sub number
+     *
+     * @param mainType f.i. 1
+     * @param subType f.i. 1
+     * @return DPT, f.i. 1.001
+     */
+    public static Dpt valueOf(int mainType, int subType) {
+        Integer key = mainType << 16 | subType;
+        Dpt dpt = NUMBER_MAP.get(key);
+        if (dpt == null) {
+            dpt = NUMBER_MAP.computeIfAbsent(key, k -> new Dpt(mainType, subType));
+        }
+        return dpt;
+    }
+
+    /**
+     * Parses a DPT as found in project and manufacturer files. Supported are
+     * DPST-x-y, DPT-x (sub number 0), a list of those (first one wins), "1
+     * Bit" and "2 Bit". Everything else, as well as null and empty, gives
+     * {@link #UNKNOWN}.
+     *
+     * @param token f.i. DPST-5-1
+     * @return DPT, f.i. 5.001
+     * @throws NumberFormatException if numbers of DPST/DPT token are not
+     * valid
+     */
+    public static Dpt parse(String token) {
+        if (token == null || token.isEmpty()) {
+            return UNKNOWN;
+        }
+        Dpt dpt = TOKEN_MAP.get(token);
+        if (dpt == null) {
+            dpt = TOKEN_MAP.computeIfAbsent(token, Dpt::parseToken);
+        }
+        return dpt;
+    }
+
+    private static Dpt parseToken(String token) {
+        if (token.contains("DPST") || token.contains("DPT")) {
+            String[] split = token.split(" ")[0].split("-");
+            if (split[0].equals("DPST")) {
+                return valueOf(Integer.parseInt(split[1]), Integer.parseInt(split[2]));
+            } else if (split[0].equals("DPT")) {
+                return valueOf(Integer.parseInt(split[1]), 0);
+            }
+            return UNKNOWN;
+        }
+        switch (token) {
+            case "1 Bit":
+                return valueOf(1, 1);
+            case "2 Bit":
+                return valueOf(2, 1);
+            default:
+                return UNKNOWN;
+        }
+    }
+
+    /**
+     * Returns the DPT for its textual form, see {@link #getId()}
+     *
+     * @param id f.i. 1.001
+     * @return DPT, or {@link #UNKNOWN} if id is not valid
+     */
+    public static Dpt fromId(String id) {
+        int dot = id == null ? -1 : id.indexOf('.');
+        if (dot > 0) {
+            try {
+                return valueOf(Integer.parseInt(id.substring(0, dot)), Integer.parseInt(id.substring(dot + 1)));
+            } catch (NumberFormatException ex) {
+                return UNKNOWN;
+            }
+        }
+        return UNKNOWN;
+    }
+
+    public int getMainType() {
+        return mainType;
+    }
+
+    public int getSubType() {
+        return subType;
+    }
+
+    /**
+     * @return textual form, f.i. 1.001
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Size of a value of this DPT on the bus, according to the main number
+     *
+     * @return size in bits, or -1 if not known or variable
+     */
+    public int getBitSize() {
+        switch (mainType) {
+            case 1:
+                return 1;
+            case 2:
+                return 2;
+            case 3:
+                return 4;
+            case 4:
+            case 5:
+            case 6:
+            case 17:
+            case 18:
+            case 20:
+            case 21:
+            case 25:
+            case 26:
+                return 8;
+            case 7:
+            case 8:
+            case 9:
+            case 22:
+                return 16;
+            case 10:
+            case 11:
+            case 30:
+                return 24;
+            case 12:
+            case 13:
+            case 14:
+            case 15:
+            case 27:
+                return 32;
+            case 19:
+            case 29:
+                return 64;
+            case 16:
+                return 112;
+            case 23:
+                return 2;
+            default:
+                return -1;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return id;
+    }
+
+}
@@ -18,20 +18,33 @@
  */
 package de.root1.knxprojparser;
 
-import java.util.Objects;
-
 
 /**
  *
  * @author achristian
  */
 public class GroupAddress {
-    private final String ga;
+    private final int address;
     private final String name;
     private final String dpt;
 
+    /**
+     * @param ga textual group address, f.i. 1/1/100
+     * @param name name as defined in ETS
+     * @param dpt DPT, f.i. 1.001
+     * @throws IllegalArgumentException if ga is not a valid group address
+     */
     public GroupAddress(String ga, String name, String dpt) {
-        this.ga = ga;
+        this(Utils.parseGroupAddress(ga), name, dpt);
+    }
+
+    /**
+     * @param address raw 16 bit group address
+     * @param name name as defined in ETS
+     * @param dpt DPT, f.i. 1.001
+     */
+    public GroupAddress(int address, String name, String dpt) {
+        this.address = address;
         this.name = name;
         this.dpt = dpt;
     }
@@ -41,7 +54,15 @@ public class GroupAddress {
      * @return address
      */
     public String getAddress() {
-        return ga;
+        return Utils.formatGroupAddress(address);
+    }
+
+    /**
+     * Get raw 16 bit group address, f.i. 2404 for 1/1/100
+     * @return address
+     */
+    public int getRawAddress() {
+        return address;
     }
 
     /**
@@ -52,19 +73,23 @@ public class GroupAddress {
         return name!=null?name:getAddress();
     }
 
+    String getRawName() {
+        return name;
+    }
+
     public String getDPT() {
         return dpt;
     }
 
     @Override
     public String toString() {
-        return "GroupAddress{" + "ga=" + ga + ", name=" + name + ", dpt=" + dpt + '}';
+        return "GroupAddress{" + "ga=" + getAddress() + ", name=" + name + ", dpt=" + dpt + '}';
     }
 
     @Override
     public int hashCode() {
         int hash = 7;
-        hash = 67 * hash + Objects.hashCode(this.ga);
+        hash = 67 * hash + address;
         return hash;
     }
 
@@ -77,7 +102,7 @@ public class GroupAddress {
             return false;
         }
         final GroupAddress other = (GroupAddress) obj;
-        if (!Objects.equals(this.ga, other.ga)) {
+        if (this.address != other.address) {
             return false;
         }
         return true;
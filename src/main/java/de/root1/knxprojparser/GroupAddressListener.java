@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2016 Alexander Christian <alex(at)root1.de>. All rights reserved.
+ * 
+ * This file is part of KnxProjParser.
+ *
+ *   KnxProjParser is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   KnxProjParser is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with KnxProjParser.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.root1.knxprojparser;
+
+/**
+ * Receives the group addresses of a project one by one, as soon as their DPT
+ * is resolved, see
+ * {@link KnxProjParser#parse(java.io.File, de.root1.knxprojparser.GroupAddressListener)}.
+ * Group addresses are reported in the order of the project file, not sorted.
+ *
+ * @author achristian
+ */
+@FunctionalInterface
+public interface GroupAddressListener {
+
+    /**
+     * @param address raw 16 bit group address, see
+     * {@link Utils#formatGroupAddress(int)}
+     * @param name name of the group address
+     * @param dpt DPT, f.i. 1.001, or null if unknown
+     */
+    void groupAddress(int address, String name, String dpt);
+
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2016 Alexander Christian <alex(at)root1.de>. All rights reserved.
+ * 
+ * This file is part of KnxProjParser.
+ *
+ *   KnxProjParser is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   KnxProjParser is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with KnxProjParser.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.root1.knxprojparser;
+
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.xml.XMLConstants;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import org.xml.sax.SAXException;
+
+/**
+ * Process wide cache for JAXB contexts and compiled XML schemas.
+ * <p>
+ * JAXBContext and Schema are thread-safe and expensive to create, so each is
+ * created only once per JVM and shared by all parser instances.
+ * (Un)marshallers are not thread-safe; they are cached per thread, so parsers
+ * running concurrently never share one and don't need a global lock.
+ *
+ * @author achristian
+ */
+public final class JaxbRegistry {
+
+    private static final ConcurrentMap<String, JAXBContext> CONTEXT_MAP = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, Schema> SCHEMA_MAP = new ConcurrentHashMap<>();
+
+    private static final ThreadLocal<Map<String, Unmarshaller>> UNMARSHALLER_MAP = ThreadLocal.withInitial(HashMap::new);
+    private static final ThreadLocal<Map<String, Marshaller>> MARSHALLER_MAP = ThreadLocal.withInitial(HashMap::new);
+
+    /**
+     * Used to tunnel checked exceptions out of computeIfAbsent
+     */
+    private static class CreationException extends RuntimeException {
+
+        CreationException(Exception cause) {
+            super(cause);
+        }
+
+    }
+
+    private JaxbRegistry() {
+    }
+
+    /**
+     * Returns the shared JAXB context for the given package
+     *
+     * @param contextPath package name, f.i. org.knx.xml.project._14
+     * @return context
+     * @throws JAXBException if context cannot be created
+     */
+    public static JAXBContext getContext(String contextPath) throws JAXBException {
+        try {
+            return CONTEXT_MAP.computeIfAbsent(contextPath, path -> {
+                try {
+                    return JAXBContext.newInstance(path);
+                } catch (JAXBException ex) {
+                    throw new CreationException(ex);
+                }
+            });
+        } catch (CreationException ex) {
+            throw (JAXBException) ex.getCause();
+        }
+    }
+
+    /**
+     * Returns the shared, compiled schema for the given classpath resource
+     *
+     * @param resource xsd resource, f.i. /xsd/project/Project_14.xsd
+     * @return schema
+     * @throws SAXException if schema cannot be compiled
+     */
+    public static Schema getSchema(String resource) throws SAXException {
+        try {
+            return SCHEMA_MAP.computeIfAbsent(resource, res -> {
+                URL xsd = JaxbRegistry.class.getResource(res);
+                if (xsd == null) {
+                    throw new CreationException(new SAXException("Schema resource not found: " + res));
+                }
+                try {
+                    // SchemaFactory is not thread-safe, use a fresh one
+                    return SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI).newSchema(xsd);
+                } catch (SAXException ex) {
+                    throw new CreationException(ex);
+                }
+            });
+        } catch (CreationException ex) {
+            throw (SAXException) ex.getCause();
+        }
+    }
+
+    /**
+     * Returns the unmarshaller of the calling thread for the given package.
+     * The unmarshaller must not be handed to other threads.
+     *
+     * @param contextPath package name, f.i. org.knx.xml.project._14
+     * @return unmarshaller
+     * @throws JAXBException if unmarshaller cannot be created
+     */
+    public static Unmarshaller getUnmarshaller(String contextPath) throws JAXBException {
+        Map<String, Unmarshaller> map = UNMARSHALLER_MAP.get();
+        Unmarshaller unmarshaller = map.get(contextPath);
+        if (unmarshaller == null) {
+            unmarshaller = getContext(contextPath).createUnmarshaller();
+            map.put(contextPath, unmarshaller);
+        }
+        return unmarshaller;
+    }
+
+    /**
+     * Returns the marshaller of the calling thread for the given package. The
+     * marshaller must not be handed to other threads.
+     *
+     * @param contextPath package name, f.i. de.root1.schema.knxproj._1
+     * @return marshaller
+     * @throws JAXBException if marshaller cannot be created
+     */
+    public static Marshaller getMarshaller(String contextPath) throws JAXBException {
+        Map<String, Marshaller> map = MARSHALLER_MAP.get();
+        Marshaller marshaller = map.get(contextPath);
+        if (marshaller == null) {
+            marshaller = getContext(contextPath).createMarshaller();
+            map.put(contextPath, marshaller);
+        }
+        return marshaller;
+    }
+
+}
@@ -19,11 +19,16 @@
 package de.root1.knxprojparser;
 
 import de.root1.knxprojparser.project.AbstractKnxParser;
+import de.root1.knxprojparser.project.LinkGraph;
+import de.root1.knxprojparser.project.ManufacturerCache;
 import de.root1.knxprojparser.project.ParseException;
+import de.root1.knxprojparser.project.ParseState;
 import de.root1.knxprojparser.project.Project11;
 import de.root1.knxprojparser.project.Project12;
 import de.root1.knxprojparser.project.Project13;
 import de.root1.knxprojparser.project.Project14;
+import de.root1.knxprojparser.project.ProjectSource;
+import de.root1.knxprojparser.project.ValidationPolicy;
 import de.root1.schema.knxproj._1.EtsDefined;
 import de.root1.schema.knxproj._1.KnxProj;
 import de.root1.schema.knxproj._1.ObjectFactory;
@@ -32,24 +37,34 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import static java.lang.Thread.interrupted;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
-import java.nio.file.FileVisitResult;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.SimpleFileVisitor;
-import java.nio.file.attribute.BasicFileAttributes;
 import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
 import javax.xml.bind.JAXBException;
 import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.stream.XMLStreamException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xml.sax.SAXException;
@@ -62,14 +77,46 @@ public class KnxProjParser {
 
     private final Logger log = LoggerFactory.getLogger(this.getClass());
 
-    private static final Class[] AVAILABLE_PARSERS = {
-        Project11.class,
-        Project12.class,
-        Project13.class,
-        Project14.class
-    };
+    /**
+     * max. number of manufacturer tables kept in memory during a batch
+     */
+    private static final int BATCH_CACHE_ENTRIES = 1024;
+
+    /**
+     * KONNEKTING programming group address 15/7/255
+     */
+    private static final int KONNEKTING_GA = 15 << 11 | 7 << 8 | 255;
+
+    /**
+     * namespace of knx_master.xml -> parser for this schema version
+     */
+    private static final Map<String, Class<? extends AbstractKnxParser>> AVAILABLE_PARSERS = new HashMap<>();
+
+    static {
+        AVAILABLE_PARSERS.put("http://knx.org/xml/project/11", Project11.class);
+        AVAILABLE_PARSERS.put("http://knx.org/xml/project/12", Project12.class);
+        AVAILABLE_PARSERS.put("http://knx.org/xml/project/13", Project13.class);
+        AVAILABLE_PARSERS.put("http://knx.org/xml/project/14", Project14.class);
+    }
     private Project project;
 
+    /**
+     * up to date export which is read on first {@link #getProject()}, set
+     * if {@link #exportXml(java.io.File, java.io.File)} had nothing to do
+     */
+    private File pendingXml;
+
+    /**
+     * project file the pending export belongs to
+     */
+    private File pendingXmlSource;
+
+    /**
+     * export which could not be read on {@link #getProject()}, never taken
+     * as up to date
+     */
+    private File unreadableXml;
+
     private enum ExportProcess {
         /**
          * file does not exist and needs to be created
@@ -82,89 +129,473 @@ public class KnxProjParser {
 
     private AbstractKnxParser parser;
 
+    private Executor executor;
+
+    private ManufacturerCache manufacturerCache;
+
+    private ParseReport report;
+
+    private boolean jfrEvents;
+
+    private boolean incremental;
+
+    private boolean fullChecksum;
+
+    private ValidationPolicy validationPolicy = ValidationPolicy.PROJECT_ONLY;
+
+    private ParseProgressListener progressListener;
+
+    /**
+     * state of the last incremental parse
+     */
+    private ParseState state;
+
+    /**
+     * file and its modification time the current project was parsed from
+     */
+    private File parsedFile;
+    private long parsedLastModified;
+
+    /**
+     * Sets the executor used to read the manufacturer files of a project
+     * concurrently, f.i. a ForkJoinPool with the desired parallelism or, on
+     * newer JVMs, a virtual thread executor. The executor is not shut down by
+     * the parser. The parse result is the same as with sequential reading.
+     *
+     * @param executor executor to use, or null (default) to read all files
+     * sequentially in the calling thread
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
     /**
-     * parses the project. This might take some time ...
+     * Sets a persistent cache for the DPT tables of manufacturer application
+     * programs. Application programs found in the cache are not read again,
+     * which saves most of the parse time for projects using common devices.
+     * The cache may be shared by several parsers.
      *
+     * @param manufacturerCache cache to use, or null (default) to read all
+     * manufacturer files
+     */
+    public void setManufacturerCache(ManufacturerCache manufacturerCache) {
+        this.manufacturerCache = manufacturerCache;
+    }
+
+    /**
+     * Enables emitting JFR events for each parse stage, see
+     * {@link ParseReport}. Events are only recorded if a JFR recording with
+     * event <code>de.root1.knxprojparser.ParseStage</code> enabled is
+     * running.
+     *
+     * @param jfrEvents true to emit events, default false
+     */
+    public void setJfrEvents(boolean jfrEvents) {
+        this.jfrEvents = jfrEvents;
+    }
+
+    /**
+     * Enables incremental parsing. The state of each parse is kept, and when
+     * the same project is parsed again only files which changed since (f.i.
+     * 0.xml after renaming a group address) are read, everything else is
+     * taken from the previous parse.
+     *
+     * @param incremental true to keep state between parses, default false
+     */
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+        if (!incremental) {
+            state = null;
+        }
+    }
+
+    /**
+     * Selects how {@link #exportXml(java.io.File, java.io.File)} and
+     * {@link #exportSnapshot(java.io.File, java.io.File)} detect whether the
+     * project changed since the last export. By default a fingerprint of the
+     * zip central directory, file size and modification time is used, see
+     * {@link Utils#createFingerprint(java.io.File)}. A full checksum reads
+     * the whole file, but does not trigger a re-parse when the file is only
+     * touched.
+     *
+     * @param fullChecksum true for a (sha1) checksum over the whole file,
+     * default false
+     */
+    public void setFullChecksum(boolean fullChecksum) {
+        this.fullChecksum = fullChecksum;
+    }
+
+    /**
+     * Selects which files are validated against the KNX schema while
+     * parsing. Projects exported by ETS are signed, so for trusted files
+     * {@link ValidationPolicy#NONE} saves a good part of the parse time.
+     * Validation can still be done on demand with
+     * {@link #validate(java.io.File)}.
+     *
+     * @param validationPolicy default {@link ValidationPolicy#PROJECT_ONLY}
+     */
+    public void setValidationPolicy(ValidationPolicy validationPolicy) {
+        this.validationPolicy = validationPolicy;
+    }
+
+    /**
+     * Sets a listener for the progress of each parse, f.i. to drive a
+     * progress bar.
+     *
+     * @param progressListener listener, or null (default)
+     */
+    public void setProgressListener(ParseProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Returns wall time and allocations per stage as well as some counts of
+     * the last successful parse. Export stage is added by
+     * {@link #exportXml(java.io.File, java.io.File)}.
+     *
+     * @return report, or null if nothing was parsed yet
+     */
+    public ParseReport getParseReport() {
+        return report;
+    }
+
+    /**
+     * parses the project. This might take some time ... .knxproj files are
+     * read directly from the zip, without extracting them first.
+     *
+     * @param knxprojFile .knxproj file or folder with extracted project
      * @throws IOException
-     * @throws JDOMException
+     * @throws FileNotSupportedException
+     * @throws ParserException
      */
     public void parse(File knxprojFile) throws IOException, FileNotSupportedException, ParserException {
+        parse(knxprojFile, null);
+    }
+
+    /**
+     * Parses the project and passes each group address to the listener as
+     * soon as its DPT is resolved, without collecting them. Use this for very
+     * large installations, memory use is bounded by the topology and the DPT
+     * tables instead of the whole project. {@link #getProject()} only holds
+     * the project information afterwards.
+     *
+     * @param knxprojFile .knxproj file or folder with extracted project
+     * @param listener receives all group addresses, or null to collect them
+     * in the project
+     * @throws IOException
+     * @throws FileNotSupportedException
+     * @throws ParserException
+     */
+    public void parse(File knxprojFile, GroupAddressListener listener) throws IOException, FileNotSupportedException, ParserException {
+        parse(knxprojFile, listener, null);
+    }
+
+    /**
+     * Parses the project in the background. The returned future completes
+     * with the project, or exceptionally with the exception
+     * {@link #parse(java.io.File)} would throw. Cancelling the future aborts
+     * the parse: cancellation is checked between files, while reading a file
+     * and while resolving DPTs, so the worker is released quickly even for
+     * huge projects. Once the deadline has passed, the future completes with
+     * a {@link TimeoutException} and the parse is aborted the same way.
+     * <p>
+     * An aborted parse may still run for a moment after the future is done,
+     * but it never publishes its results: project, report and link graph of
+     * this parser are only replaced by a parse which succeeded and was not
+     * cancelled. Still, only one parse at a time should be started on this
+     * parser.
+     *
+     * @param knxprojFile .knxproj file or folder with extracted project
+     * @param executor executor to run the parse
+     * @param deadline point in time to give up, or null to wait as long as
+     * it takes
+     * @return future project
+     */
+    public CompletableFuture<Project> parseAsync(File knxprojFile, Executor executor, Instant deadline) {
+        CompletableFuture<Project> future = new CompletableFuture<>();
+        if (deadline != null) {
+            long timeout = Math.max(0, Duration.between(Instant.now(), deadline).toMillis());
+            future.orTimeout(timeout, TimeUnit.MILLISECONDS);
+        }
+        Runnable task = () -> {
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                parse(knxprojFile, null, future::isDone);
+                future.complete(getProject());
+            } catch (CancellationException ex) {
+                // future is already cancelled or timed out
+                log.debug("Parsing {} aborted", knxprojFile.getAbsolutePath());
+            } catch (IOException | FileNotSupportedException | ParserException | RuntimeException ex) {
+                future.completeExceptionally(ex);
+            }
+        };
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException ex) {
+            future.completeExceptionally(ex);
+        }
+        return future;
+    }
+
+    private void parse(File knxprojFile, GroupAddressListener listener, BooleanSupplier cancelled) throws IOException, FileNotSupportedException, ParserException {
 
         if (!knxprojFile.exists()) {
             throw new FileNotFoundException("File does not exist: " + knxprojFile.getAbsolutePath());
         }
-        File knxProjFolder;
 
-        // check if it's required to extract
         if (knxprojFile.isFile()) {
-            knxProjFolder = Utils.createTempDirectory();
-            log.debug("Extracting to {}", knxProjFolder.getCanonicalPath());
-            Utils.extract(knxprojFile, knxProjFolder);
+            log.debug("Reading from zip file {}", knxprojFile.getAbsolutePath());
         } else {
-            knxProjFolder = knxprojFile;
-            log.debug("Using already extracted project file:  {}", knxProjFolder.getAbsolutePath());
+            log.debug("Using already extracted project file:  {}", knxprojFile.getAbsolutePath());
         }
 
-        // search for matching parser
-        for (int i = 0; i < AVAILABLE_PARSERS.length; i++) {
-            try {
-                Constructor constructor = AVAILABLE_PARSERS[i].getConstructor(File.class);
-                parser = (AbstractKnxParser) constructor.newInstance(knxProjFolder);
-                if (parser.parserMatch()) {
-                    break;
-                } else {
-                    parser = null;
-                }
-            } catch (NoSuchMethodException | SecurityException | InstantiationException | IllegalAccessException | IllegalArgumentException | InvocationTargetException ex) {
-                log.error("Error instantiating parser", ex);
+        // results are kept in locals and only published on success, an
+        // aborted asynchronous parse must not overwrite a newer one
+        long start = System.nanoTime();
+        ParseReport report = new ParseReport();
+        report.setProject(knxprojFile.getAbsolutePath());
+        report.setJfrEvents(jfrEvents);
+
+        ParseReport.Measurement measurement = report.start(ParseReport.EXTRACT);
+        try (ProjectSource source = ProjectSource.open(knxprojFile)) {
+            measurement.stop();
+            if (progressListener != null) {
+                int entries = source.getEntries().size();
+                progressListener.progress(ParseReport.EXTRACT, entries, entries);
             }
-        }
 
-        if (parser != null) {
+            // detect schema version, then create only the matching parser
+            measurement = report.start(ParseReport.VERSION_DETECT);
+            String namespace = source.getNamespace();
+            measurement.stop();
+            log.debug("knx_master.xml namespace: {}", namespace);
+            AbstractKnxParser parser = createParser(source, namespace);
+
             log.debug("parser found: {}", parser.getClass().getName());
+            parser.setExecutor(executor);
+            parser.setManufacturerCache(manufacturerCache);
+            parser.setValidationPolicy(validationPolicy);
+            parser.setParseReport(report);
+            parser.setIncremental(incremental);
+            parser.setPreviousState(state);
+            parser.setProgressListener(progressListener);
+            parser.setCancellation(cancelled);
             try {
-                parser.parse();
-                project = parser.getProject();
+                if (listener == null) {
+                    parser.parse();
+                } else {
+                    parser.parse(listener);
+                }
+                Project parsedProject = parser.getProject();
+                report.setWallTimeNanos(System.nanoTime() - start);
+                publish(knxprojFile, parser, parsedProject, report, cancelled);
             } catch (ParseException ex) {
                 throw new ParserException(ex);
             }
-        } else {
-            throw new FileNotSupportedException("The given knx project is not supported. Maybe XML Schema is too new? " + knxprojFile.getAbsolutePath());
         }
+        log.debug("{}", report);
+    }
 
-        if (knxprojFile.isFile()) {
-            log.debug("Deleting temp files {}", knxProjFolder.getAbsolutePath());
-            Path directory = Paths.get(knxProjFolder.toURI());
-            Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
-
-                @Override
-                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-                    log.debug("delete file: {}", file);
-                    Files.delete(file);
-                    return FileVisitResult.CONTINUE;
-                }
+    /**
+     * Makes the result of a successful parse the current one. Checking for
+     * cancellation and publishing is done under the lock, so a parse
+     * cancelled before a new one was started never overwrites its result.
+     *
+     * @throws CancellationException if the parse was cancelled meanwhile
+     */
+    private synchronized void publish(File knxprojFile, AbstractKnxParser parser, Project parsedProject, ParseReport report, BooleanSupplier cancelled) {
+        if (cancelled != null && cancelled.getAsBoolean()) {
+            throw new CancellationException("Parse of " + knxprojFile.getAbsolutePath() + " cancelled");
+        }
+        this.parser = parser;
+        this.report = report;
+        setProject(parsedProject);
+        state = parser.getState();
+        parsedFile = knxprojFile.getAbsoluteFile();
+        parsedLastModified = knxprojFile.lastModified();
+    }
 
-                @Override
-                public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
-                    log.debug("del direte: {}", dir);
-                    Files.delete(dir);
-                    return FileVisitResult.CONTINUE;
-                }
+    /**
+     * Parses all given projects concurrently. Each project gets its own
+     * {@link KnxProjParser}, configured like this one, which is handed to the
+     * listener when done. Schemas are compiled once per process anyway, and
+     * all parsers of the batch share one {@link ManufacturerCache}: the one
+     * set on this parser, or a memory only cache for the duration of the
+     * batch. A project which fails is reported to the listener and does not
+     * stop the batch.
+     *
+     * @param files .knxproj files or folders with extracted projects
+     * @param parallelism number of projects parsed at the same time
+     * @param listener receives result or error of each project
+     * @return number of projects parsed successfully
+     * @throws InterruptedException if interrupted while waiting for the
+     * batch, remaining projects are not parsed
+     */
+    public int parseAll(Collection<File> files, int parallelism, BatchListener listener) throws InterruptedException {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1: " + parallelism);
+        }
+        ManufacturerCache batchCache = manufacturerCache != null ? manufacturerCache : new ManufacturerCache(BATCH_CACHE_ENTRIES);
+        AtomicInteger parsed = new AtomicInteger();
+        ExecutorService batchExecutor = Executors.newFixedThreadPool(Math.min(parallelism, Math.max(1, files.size())));
+        try {
+            for (File file : files) {
+                batchExecutor.execute(() -> {
+                    KnxProjParser parser = new KnxProjParser();
+                    parser.setExecutor(executor);
+                    parser.setManufacturerCache(batchCache);
+                    parser.setJfrEvents(jfrEvents);
+                    parser.setFullChecksum(fullChecksum);
+                    parser.setValidationPolicy(validationPolicy);
+                    try {
+                        parser.parse(file);
+                    } catch (IOException | FileNotSupportedException | ParserException | RuntimeException ex) {
+                        log.warn("Error parsing " + file.getAbsolutePath(), ex);
+                        listener.failed(file, ex);
+                        return;
+                    }
+                    parsed.incrementAndGet();
+                    listener.parsed(file, parser);
+                });
+            }
+            batchExecutor.shutdown();
+            while (!batchExecutor.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.debug("Waiting for batch, {} projects parsed", parsed.get());
+            }
+        } finally {
+            batchExecutor.shutdownNow();
+        }
+        return parsed.get();
+    }
+
+    /**
+     * Parses all .knxproj files and folders with extracted projects found in
+     * the given directory, see
+     * {@link #parseAll(java.util.Collection, int, de.root1.knxprojparser.BatchListener)}
+     *
+     * @param directory directory with projects, not searched recursively
+     * @param parallelism number of projects parsed at the same time
+     * @param listener receives result or error of each project
+     * @return number of projects parsed successfully
+     * @throws IOException if directory cannot be listed
+     * @throws InterruptedException if interrupted while waiting for the
+     * batch
+     */
+    public int parseAll(File directory, int parallelism, BatchListener listener) throws IOException, InterruptedException {
+        File[] files = directory.listFiles((File file) -> file.isFile()
+                ? file.getName().toLowerCase().endsWith(".knxproj")
+                : new File(file, "knx_master.xml").isFile());
+        if (files == null) {
+            throw new IOException("Cannot list directory " + directory.getAbsolutePath());
+        }
+        Arrays.sort(files);
+        return parseAll(Arrays.asList(files), parallelism, listener);
+    }
+
+    /**
+     * Creates the parser for the schema version of the given project
+     *
+     * @param source project to read
+     * @param namespace namespace of knx_master.xml
+     * @return parser
+     * @throws FileNotSupportedException if there is no parser for this
+     * version
+     * @throws ParserException if parser cannot be created
+     */
+    private static AbstractKnxParser createParser(ProjectSource source, String namespace) throws FileNotSupportedException, ParserException {
+        Class<? extends AbstractKnxParser> parserClass = AVAILABLE_PARSERS.get(namespace);
+        if (parserClass == null) {
+            throw new FileNotSupportedException("The given knx project is not supported. Maybe XML Schema is too new? " + namespace + " in " + source.getFile().getAbsolutePath());
+        }
+
+        try {
+            Constructor<? extends AbstractKnxParser> constructor = parserClass.getConstructor(ProjectSource.class);
+            return constructor.newInstance(source);
+        } catch (NoSuchMethodException | SecurityException | InstantiationException | IllegalAccessException | IllegalArgumentException | InvocationTargetException ex) {
+            throw new ParserException("Error instantiating parser " + parserClass.getName(), ex);
+        }
+    }
 
-            });
-            log.debug("Deleting temp files *DONE*");
+    /**
+     * Validates project and application program files of the given project
+     * against the KNX schema, see {@link AbstractKnxParser#validate()}.
+     * Independent of
+     * {@link #setValidationPolicy(de.root1.knxprojparser.project.ValidationPolicy)}.
+     *
+     * @param knxprojFile .knxproj file or folder with extracted project
+     * @return validation errors, empty if project is valid
+     * @throws IOException
+     * @throws FileNotSupportedException
+     * @throws ParserException if schema cannot be loaded
+     */
+    public List<String> validate(File knxprojFile) throws IOException, FileNotSupportedException, ParserException {
+        try (ProjectSource source = ProjectSource.open(knxprojFile)) {
+            return createParser(source, source.getNamespace()).validate();
+        } catch (SAXException ex) {
+            throw new ParserException("Cannot load schema", ex);
         }
     }
 
+    /**
+     * Returns the parsed or read project. If the last
+     * {@link #exportXml(java.io.File, java.io.File)} found an up to date
+     * export, that file is read now.
+     *
+     * If that export cannot be read, the project parsed from the same
+     * project file is returned instead, and the next
+     * {@link #exportXml(java.io.File, java.io.File)} writes a new export.
+     *
+     * @return project, or null if nothing was parsed or read
+     * @throws IllegalStateException if the pending export cannot be read and
+     * this parser did not parse the project file itself. Thrown once, the
+     * export is not read again.
+     */
     public Project getProject() {
+        File xml = pendingXml;
+        if (xml != null) {
+            try {
+                setProject(loadXml(xml));
+            } catch (ParserException ex) {
+                pendingXml = null;
+                unreadableXml = xml.getAbsoluteFile();
+                if (project != null && pendingXmlSource.equals(parsedFile)
+                        && pendingXmlSource.lastModified() == parsedLastModified) {
+                    log.warn("Not able to read " + xml.getAbsolutePath() + ", using parsed project", ex);
+                    return project;
+                }
+                throw new IllegalStateException("Not able to read " + xml.getAbsolutePath(), ex);
+            }
+        }
         return project;
     }
+
+    private void setProject(Project project) {
+        this.project = project;
+        pendingXml = null;
+    }
+
+    /**
+     * Returns the links between group addresses and devices of the last
+     * successful parse, f.i. to find all devices listening to a group
+     * address.
+     *
+     * @return link graph, or null if nothing was parsed
+     */
+    public LinkGraph getLinkGraph() {
+        return parser == null ? null : parser.getLinkGraph();
+    }
     
     public void readXml(File infile) throws ParserException {
+        setProject(loadXml(infile));
+    }
+
+    private Project loadXml(File infile) throws ParserException {
         if (!infile.exists()) {
             throw new ParserException("file "+infile.getAbsolutePath()+" does nt exist.");
         }
-        project = new Project();
+        Project project = new Project();
         try {
             KnxProj knxProj = KnxProjXmlService.read(infile);
             EtsDefined etsDefined = knxProj.getEtsDefined();
@@ -184,35 +615,59 @@ public class KnxProjParser {
             
             for (de.root1.schema.knxproj._1.GroupAddress addr : etsAddresses) {
                 // replace = remove first, then add
-                GroupAddress ga = new GroupAddress(addr.getAddress(), addr.getName(), addr.getDPT());
+                GroupAddress ga = toGroupAddress(addr);
+                if (ga == null) {
+                    continue;
+                }
                 gaSet.remove(ga);
                 gaSet.add(ga);
             }
             for (de.root1.schema.knxproj._1.GroupAddress addr : userAddresses) {
                 // replace = remove first, then add
-                GroupAddress ga = new GroupAddress(addr.getAddress(), addr.getName(), addr.getDPT());
+                GroupAddress ga = toGroupAddress(addr);
+                if (ga == null) {
+                    continue;
+                }
                 gaSet.remove(ga);
                 gaSet.add(ga);
             }
             
             project.setGroupaddressList(new ArrayList<GroupAddress>(gaSet));
-            
+            return project;
             
         } catch (JAXBException | SAXException ex) {
             throw new ParserException("Not able to read xml", ex);
         }
     }
 
-    public boolean exportXml(File knxprojFile, File outfile) throws ParserException {
+    private GroupAddress toGroupAddress(de.root1.schema.knxproj._1.GroupAddress addr) {
+        try {
+            return new GroupAddress(addr.getAddress(), addr.getName(), addr.getDPT());
+        } catch (IllegalArgumentException ex) {
+            log.warn("Ignoring group address with invalid address '{}'", addr.getAddress());
+            return null;
+        }
+    }
+
+    private String createChecksum(File knxprojFile) {
         String newChecksum = "notAvailable";
-        if (knxprojFile.isFile()) {
-            try {
-                newChecksum = Utils.createChecksum(knxprojFile);
-            } catch (NoSuchAlgorithmException | IOException ex) {
-                log.warn("Cannot create checksum for file " + knxprojFile.getAbsolutePath(), ex);
+        try {
+            if (fullChecksum) {
+                if (knxprojFile.isFile()) {
+                    newChecksum = Utils.createChecksum(knxprojFile);
+                }
+            } else {
+                newChecksum = Utils.createFingerprint(knxprojFile);
             }
+        } catch (NoSuchAlgorithmException | IOException ex) {
+            log.warn("Cannot create checksum for file " + knxprojFile.getAbsolutePath(), ex);
         }
         log.debug("newChecksum={}", newChecksum);
+        return newChecksum;
+    }
+
+    public boolean exportXml(File knxprojFile, File outfile) throws ParserException {
+        String newChecksum = createChecksum(knxprojFile);
 
         KnxProj knxproj = null;
 
@@ -220,21 +675,24 @@ public class KnxProjParser {
 
             log.info("outfile exists.");
             try {
-                // read old file
-                knxproj = KnxProjXmlService.read(outfile);
-                String oldChecksum = knxproj.getEtsDefined().getChecksum();
+                // only peek at the checksum, the old file is read completely
+                // if it needs an update or if the project is asked for
+                String oldChecksum = KnxProjXmlService.readChecksum(outfile);
                 log.debug("oldChecksum={}", oldChecksum);
-                if (!oldChecksum.equals(newChecksum)) {
-                    log.info("Existing outfile has DIFFERENT checksum. Update required.");
-                } else {
+                if (newChecksum.equals(oldChecksum) && !outfile.getAbsoluteFile().equals(unreadableXml)) {
                     log.info("Existing outfile has SAME checksum. No operation required.");
-                    readXml(outfile);
+                    pendingXml = outfile;
+                    pendingXmlSource = knxprojFile.getAbsoluteFile();
                     /* !!! RETURN due to no operation required !!! */
                     return false;
                 }
+                log.info("Existing outfile has DIFFERENT checksum. Update required.");
+                // read old file
+                knxproj = KnxProjXmlService.read(outfile);
 
-            } catch (JAXBException | SAXException ex) {
+            } catch (IOException | XMLStreamException | JAXBException | SAXException ex) {
                 log.warn("Error reading file " + outfile.getAbsolutePath() + ". Forcing new file.", ex);
+                knxproj = createNewKnxProj();
             }
 
         } else {
@@ -243,7 +701,106 @@ public class KnxProjParser {
         }
 
         // at this stage it's clear, that project has to be parsed, either due to update or new
-        if (parser == null || !parser.isParsed()) {
+        parseIfRequired(knxprojFile);
+
+        ParseReport.Measurement measurement = report.start(ParseReport.EXPORT, outfile.getAbsolutePath());
+
+        try {
+            // group addresses are streamed from the project, the model only
+            // carries project information and user defined group addresses
+            updateProjectInformation(knxproj.getEtsDefined(), newChecksum);
+            knxproj.getEtsDefined().getGroupAddresses().getGroupAddress().clear();
+            knxproj.getEtsDefined().getIncompleteAddresses().getGroupAddress().clear();
+            addKonnektingGa(knxproj.getUserDefined(), project.indexOf(KONNEKTING_GA) >= 0);
+            KnxProjXmlWriter.write(outfile, knxproj, project);
+            log.debug("Exported to {}", outfile.getAbsolutePath());
+            if (outfile.getAbsoluteFile().equals(unreadableXml)) {
+                unreadableXml = null;
+            }
+        } catch (IOException ex) {
+            throw new ParserException("Error writing file " + outfile.getAbsolutePath(), ex);
+        } finally {
+            measurement.stop();
+        }
+        return true;
+    }
+
+    /**
+     * Same as {@link #exportXml(java.io.File, java.io.File)}, but writes a
+     * binary {@link ProjectSnapshot} instead of xml. Snapshots are smaller
+     * and can be reopened without parsing, see
+     * {@link #readSnapshot(java.io.File)}.
+     *
+     * @param knxprojFile .knxproj file or folder with extracted project
+     * @param outfile snapshot file
+     * @return true, if snapshot was written, false if existing snapshot is
+     * up to date
+     * @throws ParserException
+     */
+    public boolean exportSnapshot(File knxprojFile, File outfile) throws ParserException {
+        String newChecksum = createChecksum(knxprojFile);
+
+        KnxProj knxproj = null;
+
+        if (outfile.exists() && outfile.length() > 0) {
+            log.info("outfile exists.");
+            try {
+                // not mapped, the file is replaced below
+                ProjectSnapshot snapshot = ProjectSnapshot.read(outfile);
+                log.debug("oldChecksum={}", snapshot.getChecksum());
+                if (newChecksum.equals(snapshot.getChecksum())) {
+                    log.info("Existing outfile has SAME checksum. No operation required.");
+                    setProject(snapshot.toProject());
+                    /* !!! RETURN due to no operation required !!! */
+                    return false;
+                }
+                log.info("Existing outfile has DIFFERENT checksum. Update required.");
+                knxproj = snapshot.toKnxProj();
+            } catch (IOException ex) {
+                log.warn("Error reading file " + outfile.getAbsolutePath() + ". Forcing new file.", ex);
+            }
+        }
+        if (knxproj == null) {
+            knxproj = createNewKnxProj();
+        }
+
+        parseIfRequired(knxprojFile);
+
+        ParseReport.Measurement measurement = report.start(ParseReport.EXPORT, outfile.getAbsolutePath());
+        updateKnxProj(knxproj, newChecksum);
+
+        try {
+            ProjectSnapshot.write(outfile, knxproj);
+            log.debug("Exported to {}", outfile.getAbsolutePath());
+        } catch (IOException ex) {
+            throw new ParserException("Error writing file " + outfile.getAbsolutePath(), ex);
+        } finally {
+            measurement.stop();
+        }
+        return true;
+    }
+
+    /**
+     * Reads a snapshot written by
+     * {@link #exportSnapshot(java.io.File, java.io.File)}. Like
+     * {@link #readXml(java.io.File)}, user defined group addresses replace the
+     * ETS defined ones.
+     *
+     * @param infile snapshot file
+     * @throws ParserException if file cannot be read
+     */
+    public void readSnapshot(File infile) throws ParserException {
+        try {
+            setProject(ProjectSnapshot.read(infile).toProject());
+        } catch (IOException ex) {
+            throw new ParserException("Not able to read snapshot", ex);
+        }
+    }
+
+    private void parseIfRequired(File knxprojFile) throws ParserException {
+        if (parser == null || !parser.isParsed()
+                || !knxprojFile.getAbsoluteFile().equals(parsedFile)
+                || knxprojFile.lastModified() != parsedLastModified) {
             log.info("Parsing file");
             try {
                 parse(knxprojFile);
@@ -252,28 +809,17 @@ public class KnxProjParser {
             }
             log.debug("Parsing ... *DONE*");
         }
+    }
 
+    /**
+     * Puts the parsed project into the export model. User defined group
+     * addresses are kept.
+     */
+    private void updateKnxProj(KnxProj knxproj, String newChecksum) {
         Project parsed = this.project;
-        
-        EtsDefined etsDefined = knxproj.getEtsDefined();
-        UserDefined userDefined = knxproj.getUserDefined();
-        etsDefined.setChecksum(newChecksum);
-        de.root1.schema.knxproj._1.Project project = etsDefined.getProject();
 
-        // setting project information
-        project.setCreatedBy(parsed.getCreatedBy());
-        project.setToolVersion(parsed.getToolVersion());
-        project.setName(parsed.getName());
-        try {
-            if (parsed.getLastModified() != null) {
-                project.setLastModified(Utils.dateToXmlDateTime(parsed.getLastModified()));
-            }
-            if (parsed.getProjectStart() != null) {
-                project.setProjectStarted(Utils.dateToXmlDateTime(parsed.getProjectStart()));
-            }
-        } catch (DatatypeConfigurationException ex) {
-            log.warn("Cannot convert XmlDateTime", ex);
-        }
+        EtsDefined etsDefined = knxproj.getEtsDefined();
+        updateProjectInformation(etsDefined, newChecksum);
 
         // setting GAs
         List<de.root1.schema.knxproj._1.GroupAddress> gaList = etsDefined.getGroupAddresses().getGroupAddress();
@@ -283,26 +829,61 @@ public class KnxProjParser {
         gaList.clear();
         gaListIncomplete.clear();
         boolean etsKonnektingGaFound = false;
-        for (GroupAddress ga : parsed.getGroupaddressList()) {
+        for (int i = 0; i < parsed.getGroupAddressCount(); i++) {
 
             de.root1.schema.knxproj._1.GroupAddress insertGa = new de.root1.schema.knxproj._1.GroupAddress();
 
-            if (ga.getAddress().equals("15/7/255")) {
+            if (parsed.getRawAddress(i) == KONNEKTING_GA) {
                 etsKonnektingGaFound = true;
             }
-            
-            insertGa.setAddress(ga.getAddress());
-            insertGa.setName(ga.getName());
-            insertGa.setDPT(ga.getDPT());
+            String address = Utils.formatGroupAddress(parsed.getRawAddress(i));
+
+            String name = parsed.getGroupAddressName(i);
+            insertGa.setAddress(address);
+            insertGa.setName(name != null ? name : address);
+            insertGa.setDPT(parsed.getGroupAddressDPT(i));
 
-            if (insertGa.getDPT() == null || insertGa.getDPT().isEmpty() || insertGa.getDPT().equals("0.000")) {
+            if (!KnxProjXmlWriter.isComplete(insertGa.getDPT())) {
                 insertGa.setDPT("");
                 gaListIncomplete.add(insertGa);
             } else {
                 gaList.add(insertGa);
             }
         }
-        
+
+        addKonnektingGa(knxproj.getUserDefined(), etsKonnektingGaFound);
+    }
+
+    /**
+     * Sets checksum and project information of the export model
+     */
+    private void updateProjectInformation(EtsDefined etsDefined, String newChecksum) {
+        Project parsed = this.project;
+
+        etsDefined.setChecksum(newChecksum);
+        de.root1.schema.knxproj._1.Project project = etsDefined.getProject();
+
+        // setting project information
+        project.setCreatedBy(parsed.getCreatedBy());
+        project.setToolVersion(parsed.getToolVersion());
+        project.setName(parsed.getName());
+        try {
+            if (parsed.getLastModified() != null) {
+                project.setLastModified(Utils.dateToXmlDateTime(parsed.getLastModified()));
+            }
+            if (parsed.getProjectStart() != null) {
+                project.setProjectStarted(Utils.dateToXmlDateTime(parsed.getProjectStart()));
+            }
+        } catch (DatatypeConfigurationException ex) {
+            log.warn("Cannot convert XmlDateTime", ex);
+        }
+    }
+
+    /**
+     * Adds the KONNEKTING programming group address to the user defined group
+     * addresses, if neither ETS nor user defined it.
+     */
+    private void addKonnektingGa(UserDefined userDefined, boolean etsKonnektingGaFound) {
         boolean userKonnektingGaFound = false;
         for(de.root1.schema.knxproj._1.GroupAddress ga : userDefined.getGroupAddresses().getGroupAddress()) {
             if (ga.getAddress().equals("15/7/255")) {
@@ -319,14 +900,6 @@ public class KnxProjParser {
             konnektingGa.setComment("created by "+props.getProperty("name","KnxProjParser"));
             userDefined.getGroupAddresses().getGroupAddress().add(konnektingGa);
         }
-
-        try {
-            KnxProjXmlService.write(outfile, knxproj);
-            log.debug("Exported to {}", outfile.getAbsolutePath());
-        } catch (JAXBException | SAXException ex) {
-            throw new ParserException("Error writing file " + outfile.getAbsolutePath(), ex);
-        }
-        return true;
     }
 
     private KnxProj createNewKnxProj() {
@@ -357,25 +930,12 @@ public class KnxProjParser {
         }
     }
     
-    static class Dots implements Runnable {
-
-        @Override
-            public void run() {
-                while (!interrupted()) {
-                    System.out.print(".");
-                    System.out.flush();
-                    try {
-                        Thread.sleep(500);
-                    } catch (InterruptedException ex) {
-                        Thread.currentThread().interrupt();
-                    }
-                }
-            }
-        
-    }
-
     public static void main(String[] args) throws FileNotFoundException, ParserException, IOException, FileNotSupportedException {
         System.out.println("["+props.getProperty("name", "KnxProjParser")+"]");
+        if (args.length > 1 && args[0].equals("--watch")) {
+            watch(new File(args[1]));
+            return;
+        }
         File f = new File(args[0]);
         
         if (Boolean.getBoolean("supppressFilePath")) {
@@ -383,32 +943,54 @@ public class KnxProjParser {
         } else {
             System.out.print("Reading " + f.getAbsolutePath());
         }
-        Thread t0 = new Thread(new Dots());
-        t0.setDaemon(true);
-        t0.start();
         KnxProjParser parser = new KnxProjParser();
-        t0.interrupt();
+        parser.setProgressListener((stage, done, total) -> {
+            // one dot per manufacturer file and per 1024 group addresses
+            if (done > 0 && (stage.equals(ParseReport.MANUFACTURER_FILE) || stage.equals(ParseReport.DPT_RESOLUTION))) {
+                System.out.print(".");
+                System.out.flush();
+            }
+        });
         System.out.println(" OK");
         
         System.out.print("Parsing ");
-        Thread t1 = new Thread(new Dots());
-        t1.setDaemon(true);
-        t1.start();
         parser.parse(new File(args[0]));
         System.out.println(" OK");
         
         System.out.print("Exporting ");
-        Thread t2 = new Thread(new Dots());
-        t2.setDaemon(true);
-        t2.start();
         boolean result = parser.exportXml(new File(args[0]), new File(args[0] + ".parsed.xml"));
-        t2.interrupt();
         System.out.println((result?" OK":" Same file already present, no export required."));
         
         System.out.println("DONE!");
         System.out.println("");
     }
     
+    /**
+     * Keeps parsing all .knxproj files in the given directory whenever they
+     * change, until the process is stopped
+     */
+    private static void watch(File directory) throws IOException {
+        ProjectWatcher watcher = new ProjectWatcher(directory);
+        watcher.setListener(new BatchListener() {
+            @Override
+            public void parsed(File file, KnxProjParser parser) {
+                System.out.println("Parsed " + file.getName() + ": " + parser.getProject().getGroupAddressCount() + " group addresses");
+            }
+
+            @Override
+            public void failed(File file, Exception ex) {
+                System.out.println("Error parsing " + file.getName() + ": " + ex.getMessage());
+            }
+        });
+        watcher.start();
+        System.out.println("Watching " + directory.getAbsolutePath() + " ...");
+        try {
+            Thread.sleep(Long.MAX_VALUE);
+        } catch (InterruptedException ex) {
+            watcher.close();
+        }
+    }
+
     public static boolean hasDPT(GroupAddress ga) {
         return ga.getDPT()!=null && !ga.getDPT().isEmpty() && !ga.getDPT().equals("0.000");
     }
@@ -0,0 +1,239 @@
+/*
+ * Copyright (C) 2016 Alexander Christian <alex(at)root1.de>. All rights reserved.
+ * 
+ * This file is part of KnxProjParser.
+ *
+ *   KnxProjParser is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   KnxProjParser is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with KnxProjParser.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.root1.knxprojparser;
+
+import de.root1.schema.knxproj._1.EtsDefined;
+import de.root1.schema.knxproj._1.KnxProj;
+import de.root1.schema.knxproj._1.UserDefined;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import javax.xml.datatype.XMLGregorianCalendar;
+
+/**
+ * Streaming writer for KnxProj xml files. ETS defined group addresses are
+ * written straight from the columnar {@link Project}, so no JAXB object is
+ * created per group address and memory does not grow with the project size.
+ * <p>
+ * Output is byte identical to what {@link KnxProjXmlService} writes with
+ * formatted output: same declaration, indentation, attribute order and
+ * escaping. A plain writer is used instead of a XMLStreamWriter, as the
+ * latter can neither write <code>standalone="yes"</code> nor indent.
+ *
+ * @author achristian
+ */
+class KnxProjXmlWriter {
+
+    private static final String NAMESPACE = "http://root1.de/schema/KnxProj/1";
+    private static final String INDENT = "    ";
+
+    private final Writer out;
+
+    private KnxProjXmlWriter(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Writes a KnxProj xml file. Project information, checksum and user
+     * defined group addresses are taken from the given model, ETS defined and
+     * incomplete group addresses from the parsed project. Group addresses of
+     * the model's ETS section are ignored.
+     *
+     * @param f file to write
+     * @param knxproj model with project information and user defined group
+     * addresses
+     * @param parsed parsed project
+     * @throws IOException
+     */
+    static void write(File f, KnxProj knxproj, Project parsed) throws IOException {
+        try (Writer w = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(f), StandardCharsets.UTF_8))) {
+            new KnxProjXmlWriter(w).writeKnxProj(knxproj, parsed);
+        }
+    }
+
+    private void writeKnxProj(KnxProj knxproj, Project parsed) throws IOException {
+        out.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n");
+        out.write("<KnxProj xmlns=\"");
+        out.write(NAMESPACE);
+        out.write('"');
+        if (knxproj.getEtsDefined() == null && knxproj.getUserDefined() == null) {
+            out.write("/>\n");
+            return;
+        }
+        out.write(">\n");
+        if (knxproj.getEtsDefined() != null) {
+            writeEtsDefined(knxproj.getEtsDefined(), parsed);
+        }
+        if (knxproj.getUserDefined() != null) {
+            writeUserDefined(knxproj.getUserDefined());
+        }
+        out.write("</KnxProj>\n");
+    }
+
+    private void writeEtsDefined(EtsDefined etsDefined, Project parsed) throws IOException {
+        indent(1);
+        out.write("<EtsDefined");
+        attribute("checksum", etsDefined.getChecksum());
+        out.write(">\n");
+
+        de.root1.schema.knxproj._1.Project project = etsDefined.getProject();
+        indent(2);
+        out.write("<Project");
+        attribute("Name", project.getName());
+        attribute("LastModified", project.getLastModified());
+        attribute("ProjectStarted", project.getProjectStarted());
+        attribute("CreatedBy", project.getCreatedBy());
+        attribute("ToolVersion", project.getToolVersion());
+        out.write("/>\n");
+
+        // two passes over the project instead of collecting two lists
+        writeParsedGroupAddresses("GroupAddresses", parsed, true);
+        writeParsedGroupAddresses("IncompleteAddresses", parsed, false);
+
+        indent(1);
+        out.write("</EtsDefined>\n");
+    }
+
+    private void writeParsedGroupAddresses(String element, Project parsed, boolean complete) throws IOException {
+        boolean empty = true;
+        for (int i = 0; i < parsed.getGroupAddressCount(); i++) {
+            String dpt = parsed.getGroupAddressDPT(i);
+            if (isComplete(dpt) != complete) {
+                continue;
+            }
+            if (empty) {
+                indent(2);
+                out.write('<');
+                out.write(element);
+                out.write(">\n");
+                empty = false;
+            }
+            String address = Utils.formatGroupAddress(parsed.getRawAddress(i));
+            String name = parsed.getGroupAddressName(i);
+            writeGroupAddress(3, address, name != null ? name : address, complete ? dpt : "", null);
+        }
+        indent(2);
+        out.write(empty ? "<" : "</");
+        out.write(element);
+        out.write(empty ? "/>\n" : ">\n");
+    }
+
+    private void writeUserDefined(UserDefined userDefined) throws IOException {
+        indent(1);
+        if (userDefined.getGroupAddresses() == null) {
+            out.write("<UserDefined/>\n");
+            return;
+        }
+        out.write("<UserDefined>\n");
+        List<de.root1.schema.knxproj._1.GroupAddress> list = userDefined.getGroupAddresses().getGroupAddress();
+        indent(2);
+        if (list.isEmpty()) {
+            out.write("<GroupAddresses/>\n");
+        } else {
+            out.write("<GroupAddresses>\n");
+            for (de.root1.schema.knxproj._1.GroupAddress ga : list) {
+                writeGroupAddress(3, ga.getAddress(), ga.getName(), ga.getDPT(), ga.getComment());
+            }
+            indent(2);
+            out.write("</GroupAddresses>\n");
+        }
+        indent(1);
+        out.write("</UserDefined>\n");
+    }
+
+    private void writeGroupAddress(int level, String address, String name, String dpt, String comment) throws IOException {
+        indent(level);
+        out.write("<GroupAddress");
+        attribute("Address", address);
+        attribute("Name", name);
+        attribute("DPT", dpt);
+        attribute("Comment", comment);
+        out.write("/>\n");
+    }
+
+    /**
+     * Same rule as used for the JAXB model: a group address without DPT, or
+     * with DPT 0.000, is incomplete
+     */
+    static boolean isComplete(String dpt) {
+        return dpt != null && !dpt.isEmpty() && !dpt.equals("0.000");
+    }
+
+    private void indent(int level) throws IOException {
+        for (int i = 0; i < level; i++) {
+            out.write(INDENT);
+        }
+    }
+
+    private void attribute(String name, XMLGregorianCalendar value) throws IOException {
+        if (value != null) {
+            attribute(name, value.toXMLFormat());
+        }
+    }
+
+    /**
+     * Writes an attribute, escaped like JAXB does. Attributes with null value
+     * are omitted.
+     */
+    private void attribute(String name, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        out.write(' ');
+        out.write(name);
+        out.write("=\"");
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            String replacement;
+            switch (value.charAt(i)) {
+                case '&':
+                    replacement = "&amp;";
+                    break;
+                case '<':
+                    replacement = "&lt;";
+                    break;
+                case '>':
+                    replacement = "&gt;";
+                    break;
+                case '"':
+                    replacement = "&quot;";
+                    break;
+                case '\n':
+                    replacement = "&#10;";
+                    break;
+                case '\r':
+                    replacement = "&#13;";
+                    break;
+                default:
+                    continue;
+            }
+            out.write(value, start, i - start);
+            out.write(replacement);
+            start = i + 1;
+        }
+        out.write(value, start, value.length() - start);
+        out.write('"');
+    }
+
+}
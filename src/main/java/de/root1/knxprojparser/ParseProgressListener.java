@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2016 Alexander Christian <alex(at)root1.de>. All rights reserved.
+ * 
+ * This file is part of KnxProjParser.
+ *
+ *   KnxProjParser is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   KnxProjParser is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with KnxProjParser.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.root1.knxprojparser;
+
+/**
+ * Receives the progress of a parse, see
+ * {@link KnxProjParser#setProgressListener(de.root1.knxprojparser.ParseProgressListener)}.
+ * Stages are reported in this order:
+ * <ul>
+ * <li>{@link ParseReport#EXTRACT}: once, with the number of entries found in
+ * the project</li>
+ * <li>{@link ParseReport#PROJECT} and {@link ParseReport#INSTALLATION}: once,
+ * when the file is read</li>
+ * <li>{@link ParseReport#MANUFACTURER_FILE}: before the first and after each
+ * manufacturer file</li>
+ * <li>{@link ParseReport#DPT_RESOLUTION}: before the first, after every
+ * 1024th and after the last group address</li>
+ * </ul>
+ * If manufacturer files are read concurrently, see
+ * {@link KnxProjParser#setExecutor(java.util.concurrent.Executor)}, their
+ * progress is reported by the threads of the executor and may arrive out of
+ * order.
+ *
+ * @author achristian
+ */
+@FunctionalInterface
+public interface ParseProgressListener {
+
+    /**
+     * @param stage one of the stage names in {@link ParseReport}
+     * @param done number of items done, f.i. manufacturer files read
+     * @param total number of items of this stage
+     */
+    void progress(String stage, int done, int total);
+
+}
@@ -0,0 +1,304 @@
+/*
+ * Copyright (C) 2016 Alexander Christian <alex(at)root1.de>. All rights reserved.
+ * 
+ * This file is part of KnxProjParser.
+ *
+ *   KnxProjParser is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   KnxProjParser is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with KnxProjParser.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.root1.knxprojparser;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Timing and allocation report of a parse. Each stage records its wall time
+ * and, if supported by the JVM, the bytes allocated by the thread running the
+ * stage. Manufacturer files are reported one by one, they may have been read
+ * concurrently, so the sum of all stages can exceed
+ * {@link #getWallTimeNanos()}.
+ * <p>
+ * If enabled with {@link #setJfrEvents(boolean)}, every stage is also emitted
+ * as JFR event <code>de.root1.knxprojparser.ParseStage</code>, recorded
+ * whenever a JFR recording has this event enabled.
+ *
+ * @author achristian
+ */
+public class ParseReport {
+
+    public static final String EXTRACT = "extract";
+    public static final String VERSION_DETECT = "version detect";
+    public static final String PROJECT = "project.xml";
+    public static final String INSTALLATION = "0.xml";
+    public static final String MANUFACTURER_FILE = "manufacturer file";
+    public static final String DPT_RESOLUTION = "dpt resolution";
+    public static final String SORT = "sort";
+    public static final String EXPORT = "export";
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN;
+
+    static {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()
+                && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemoryEnabled()) {
+            THREAD_MX_BEAN = (com.sun.management.ThreadMXBean) bean;
+        } else {
+            THREAD_MX_BEAN = null;
+        }
+    }
+
+    /**
+     * A finished stage
+     */
+    public static class Stage {
+
+        private final String name;
+        private final String detail;
+        private final long wallTimeNanos;
+        private final long allocatedBytes;
+
+        Stage(String name, String detail, long wallTimeNanos, long allocatedBytes) {
+            this.name = name;
+            this.detail = detail;
+            this.wallTimeNanos = wallTimeNanos;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        /**
+         * @return stage name, one of the constants in {@link ParseReport}
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return f.i. the manufacturer file, or null
+         */
+        public String getDetail() {
+            return detail;
+        }
+
+        public long getWallTimeNanos() {
+            return wallTimeNanos;
+        }
+
+        /**
+         * @return bytes allocated by the thread running the stage, -1 if not
+         * supported by the JVM
+         */
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-18s %8.2f ms %12d bytes%s", name, wallTimeNanos / 1e6, allocatedBytes,
+                    detail == null ? "" : "  " + detail);
+        }
+
+    }
+
+    /**
+     * A running stage, see {@link ParseReport#start(java.lang.String)}
+     */
+    public class Measurement {
+
+        private final String name;
+        private final String detail;
+        private final long startNanos;
+        private final long startAllocated;
+        private final ParseStageEvent event;
+
+        private Measurement(String name, String detail) {
+            this.name = name;
+            this.detail = detail;
+            if (jfrEvents) {
+                event = new ParseStageEvent();
+                event.begin();
+            } else {
+                event = null;
+            }
+            this.startAllocated = allocatedBytes();
+            this.startNanos = System.nanoTime();
+        }
+
+        /**
+         * Finishes the stage and adds it to the report. Has to be called by
+         * the thread which started the stage.
+         */
+        public void stop() {
+            long wallTime = System.nanoTime() - startNanos;
+            long allocated = startAllocated < 0 ? -1 : allocatedBytes() - startAllocated;
+            addStage(new Stage(name, detail, wallTime, allocated));
+            if (event != null) {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.stage = name;
+                    event.detail = detail;
+                    event.project = project;
+                    event.allocated = allocated;
+                    event.commit();
+                }
+            }
+        }
+
+    }
+
+    private final List<Stage> stages = new ArrayList<>();
+    private String project;
+    private long wallTimeNanos;
+    private boolean jfrEvents;
+    private int groupAddressCount;
+    private int deviceCount;
+    private int comObjectInstanceRefCount;
+    private int manufacturerFileCount;
+
+    private static long allocatedBytes() {
+        if (THREAD_MX_BEAN == null) {
+            return -1;
+        }
+        return THREAD_MX_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Starts measuring a stage
+     *
+     * @param name stage name, f.i. {@link #PROJECT}
+     * @return running stage, call {@link Measurement#stop()} when done
+     */
+    public Measurement start(String name) {
+        return new Measurement(name, null);
+    }
+
+    /**
+     * Starts measuring a stage
+     *
+     * @param name stage name, f.i. {@link #MANUFACTURER_FILE}
+     * @param detail f.i. M-0083/M-0083_A-0026-14-05BA.xml
+     * @return running stage, call {@link Measurement#stop()} when done
+     */
+    public Measurement start(String name, String detail) {
+        return new Measurement(name, detail);
+    }
+
+    private synchronized void addStage(Stage stage) {
+        stages.add(stage);
+    }
+
+    /**
+     * @return all finished stages in the order they finished
+     */
+    public synchronized List<Stage> getStages() {
+        return new ArrayList<>(stages);
+    }
+
+    /**
+     * Sums up wall time of all stages with the given name
+     *
+     * @param name f.i. {@link #MANUFACTURER_FILE}
+     * @return nanoseconds
+     */
+    public synchronized long getWallTimeNanos(String name) {
+        long sum = 0;
+        for (Stage stage : stages) {
+            if (stage.getName().equals(name)) {
+                sum += stage.getWallTimeNanos();
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * @return wall time of the whole parse in nanoseconds
+     */
+    public long getWallTimeNanos() {
+        return wallTimeNanos;
+    }
+
+    public void setWallTimeNanos(long wallTimeNanos) {
+        this.wallTimeNanos = wallTimeNanos;
+    }
+
+    /**
+     * @return parsed file or folder
+     */
+    public String getProject() {
+        return project;
+    }
+
+    public void setProject(String project) {
+        this.project = project;
+    }
+
+    public boolean isJfrEvents() {
+        return jfrEvents;
+    }
+
+    /**
+     * Enables emitting stages as JFR events
+     *
+     * @param jfrEvents true to emit events
+     */
+    public void setJfrEvents(boolean jfrEvents) {
+        this.jfrEvents = jfrEvents;
+    }
+
+    public int getGroupAddressCount() {
+        return groupAddressCount;
+    }
+
+    public void setGroupAddressCount(int groupAddressCount) {
+        this.groupAddressCount = groupAddressCount;
+    }
+
+    public int getDeviceCount() {
+        return deviceCount;
+    }
+
+    public void setDeviceCount(int deviceCount) {
+        this.deviceCount = deviceCount;
+    }
+
+    public int getComObjectInstanceRefCount() {
+        return comObjectInstanceRefCount;
+    }
+
+    public void setComObjectInstanceRefCount(int comObjectInstanceRefCount) {
+        this.comObjectInstanceRefCount = comObjectInstanceRefCount;
+    }
+
+    /**
+     * @return number of manufacturer files read or taken from cache
+     */
+    public int getManufacturerFileCount() {
+        return manufacturerFileCount;
+    }
+
+    public void setManufacturerFileCount(int manufacturerFileCount) {
+        this.manufacturerFileCount = manufacturerFileCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("ParseReport{project=%s, wallTime=%.2f ms, groupAddresses=%d, devices=%d, comObjectInstanceRefs=%d, manufacturerFiles=%d}",
+                project, wallTimeNanos / 1e6, groupAddressCount, deviceCount, comObjectInstanceRefCount, manufacturerFileCount));
+        for (Stage stage : stages) {
+            sb.append("\n  ").append(stage);
+        }
+        return sb.toString();
+    }
+
+}
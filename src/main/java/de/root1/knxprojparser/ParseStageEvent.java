@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2016 Alexander Christian <alex(at)root1.de>. All rights reserved.
+ * 
+ * This file is part of KnxProjParser.
+ *
+ *   KnxProjParser is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   KnxProjParser is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with KnxProjParser.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.root1.knxprojparser;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for a finished parse stage, see {@link ParseReport}
+ *
+ * @author achristian
+ */
+@Name("de.root1.knxprojparser.ParseStage")
+@Label("KNX Project Parse Stage")
+@Category("KnxProjParser")
+@Description("A finished stage of parsing a knx project")
+class ParseStageEvent extends Event {
+
+    @Label("Stage")
+    String stage;
+
+    @Label("Detail")
+    String detail;
+
+    @Label("Project")
+    String project;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocated;
+
+}
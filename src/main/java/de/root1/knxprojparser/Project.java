@@ -19,6 +19,7 @@
 package de.root1.knxprojparser;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import org.slf4j.Logger;
@@ -32,19 +33,323 @@ public class Project {
 
     private Logger log = LoggerFactory.getLogger(this.getClass());
 
-    private List<GroupAddress> groupaddressList = new ArrayList<>();
+    /**
+     * group addresses, stored column by column: raw address and indices of
+     * name and DPT in {@link #strings}
+     */
+    private int[] addresses = new int[0];
+    private int[] names = new int[0];
+    private int[] dpts = new int[0];
+    private int size;
+    private StringPool strings = new StringPool();
+
+    /**
+     * lookup table, see {@link #indexOf(int)}, null until first lookup
+     */
+    private volatile int[] index;
+    private boolean sorted = true;
+
     private String name;
     private Date lastModified;
     private Date projectStart;
     private String createdBy;
     private String toolVersion;
 
+    /**
+     * Returns all group addresses. The list is created on each call, changes
+     * to it are not reflected in the project, use
+     * {@link #setGroupaddressList(java.util.List)} or
+     * {@link #addGroupAddress(int, java.lang.String, java.lang.String)}. For
+     * large projects prefer index based access, f.i.
+     * {@link #getRawAddress(int)}, which does not create any objects.
+     *
+     * @return group addresses
+     */
     public List<GroupAddress> getGroupaddressList() {
-        return groupaddressList;
+        List<GroupAddress> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(getGroupAddress(i));
+        }
+        return list;
     }
 
+    /**
+     * Replaces all group addresses. The project is sorted afterwards, see
+     * {@link #sortGroupAddresses()}.
+     *
+     * @param groupaddressList new group addresses
+     */
     public void setGroupaddressList(List<GroupAddress> groupaddressList) {
-        this.groupaddressList = groupaddressList;
+        addresses = new int[groupaddressList.size()];
+        names = new int[groupaddressList.size()];
+        dpts = new int[groupaddressList.size()];
+        size = 0;
+        strings = new StringPool();
+        index = null;
+        sorted = true;
+        for (GroupAddress ga : groupaddressList) {
+            addGroupAddress(ga.getRawAddress(), ga.getRawName(), ga.getDPT());
+        }
+        sortGroupAddresses();
+    }
+
+    /**
+     * Appends a group address
+     *
+     * @param address raw 16 bit group address
+     * @param name name as defined in ETS, may be null
+     * @param dpt DPT, f.i. 1.001, may be null
+     */
+    public void addGroupAddress(int address, String name, String dpt) {
+        if (size == addresses.length) {
+            int capacity = Math.max(16, size + (size >> 1));
+            addresses = Arrays.copyOf(addresses, capacity);
+            names = Arrays.copyOf(names, capacity);
+            dpts = Arrays.copyOf(dpts, capacity);
+        }
+        if (size > 0 && addresses[size - 1] > address) {
+            sorted = false;
+        }
+        addresses[size] = address;
+        names[size] = strings.intern(name);
+        dpts[size] = strings.intern(dpt);
+        size++;
+        index = null;
+    }
+
+    /**
+     * @return number of group addresses
+     */
+    public int getGroupAddressCount() {
+        return size;
+    }
+
+    /**
+     * @param index 0..{@link #getGroupAddressCount()}-1
+     * @return raw 16 bit group address
+     */
+    public int getRawAddress(int index) {
+        checkIndex(index);
+        return addresses[index];
+    }
+
+    /**
+     * @param index 0..{@link #getGroupAddressCount()}-1
+     * @return name as defined in ETS, or null
+     */
+    public String getGroupAddressName(int index) {
+        checkIndex(index);
+        return strings.get(names[index]);
+    }
+
+    /**
+     * @param index 0..{@link #getGroupAddressCount()}-1
+     * @return DPT, f.i. 1.001, or null
+     */
+    public String getGroupAddressDPT(int index) {
+        checkIndex(index);
+        return strings.get(dpts[index]);
+    }
+
+    /**
+     * @param index 0..{@link #getGroupAddressCount()}-1
+     * @return group address at given index, created on each call
+     */
+    public GroupAddress getGroupAddress(int index) {
+        checkIndex(index);
+        return new GroupAddress(addresses[index], strings.get(names[index]), strings.get(dpts[index]));
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    /**
+     * Sorts group addresses by address. Order of equal addresses is kept.
+     */
+    public void sortGroupAddresses() {
+        // sort address and original position in one go, position keeps it stable
+        long[] keys = new long[size];
+        boolean inOrder = true;
+        for (int i = 0; i < size; i++) {
+            keys[i] = (long) addresses[i] << 32 | i;
+            if (i > 0 && addresses[i - 1] > addresses[i]) {
+                inOrder = false;
+            }
+        }
+        if (inOrder) {
+            sorted = true;
+            return;
+        }
+        Arrays.sort(keys);
+        int[] sortedAddresses = new int[size];
+        int[] sortedNames = new int[size];
+        int[] sortedDpts = new int[size];
+        for (int i = 0; i < size; i++) {
+            int from = (int) keys[i];
+            sortedAddresses[i] = addresses[from];
+            sortedNames[i] = names[from];
+            sortedDpts[i] = dpts[from];
+        }
+        addresses = sortedAddresses;
+        names = sortedNames;
+        dpts = sortedDpts;
+        sorted = true;
+        index = null;
+    }
+
+    /**
+     * @return true, if group addresses are sorted by address, which is
+     * required by {@link #rangeStart(int, int)} and
+     * {@link #rangeEnd(int, int)}
+     */
+    public boolean isSorted() {
+        return sorted;
+    }
+
+    /**
+     * Looks up a group address. Uses a primitive open addressing table which
+     * is built on first use, lookups do not allocate. Indices change when
+     * group addresses are added or sorted.
+     *
+     * @param rawAddress raw 16 bit group address
+     * @return index of the group address, or -1 if not part of the project.
+     * If an address is contained more than once, the first one is returned.
+     */
+    public int indexOf(int rawAddress) {
+        int[] table = index;
+        if (table == null) {
+            table = buildIndex();
+        }
+        int mask = table.length - 1;
+        int slot = mix(rawAddress) & mask;
+        int i;
+        while ((i = table[slot]) != 0) {
+            if (addresses[i - 1] == rawAddress) {
+                return i - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Looks up a group address, see {@link #indexOf(int)}
+     *
+     * @param ga textual group address, f.i. 1/1/100
+     * @return index of the group address, or -1 if not part of the project
+     * or not a valid group address
+     */
+    public int indexOf(String ga) {
+        int rawAddress = Utils.tryParseGroupAddress(ga);
+        return rawAddress < 0 ? -1 : indexOf(rawAddress);
+    }
+
+    private synchronized int[] buildIndex() {
+        if (index != null) {
+            return index;
+        }
+        int capacity = 16;
+        while (capacity < size * 2) {
+            capacity <<= 1;
+        }
+        int[] table = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < size; i++) {
+            int slot = mix(addresses[i]) & mask;
+            boolean duplicate = false;
+            while (table[slot] != 0) {
+                if (addresses[table[slot] - 1] == addresses[i]) {
+                    duplicate = true;
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+            if (!duplicate) {
+                table[slot] = i + 1;
+            }
+        }
+        index = table;
+        return table;
+    }
+
+    private static int mix(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the first index of a main group. Together with
+     * {@link #rangeEnd(int)} all group addresses of the main group can be
+     * iterated. Requires a sorted project, see {@link #isSorted()}.
+     *
+     * @param main main group, 0..31
+     * @return first index with address &gt;= main/0/0
+     * @throws IllegalStateException if the project is not sorted
+     */
+    public int rangeStart(int main) {
+        return rangeStart(main, 0);
+    }
+
+    /**
+     * @param main main group, 0..31
+     * @return index after the last address of the main group
+     */
+    public int rangeEnd(int main) {
+        return rangeEnd(main, 7);
+    }
+
+    /**
+     * Returns the first index of a middle group. Together with
+     * {@link #rangeEnd(int, int)} all group addresses of the middle group can
+     * be iterated. Requires a sorted project, see {@link #isSorted()}.
+     *
+     * @param main main group, 0..31
+     * @param middle middle group, 0..7
+     * @return first index with address &gt;= main/middle/0
+     * @throws IllegalStateException if the project is not sorted
+     */
+    public int rangeStart(int main, int middle) {
+        return lowerBound(main << 11 | middle << 8);
+    }
+
+    /**
+     * @param main main group, 0..31
+     * @param middle middle group, 0..7
+     * @return index after the last address of the middle group
+     */
+    public int rangeEnd(int main, int middle) {
+        return lowerBound((main << 11 | middle << 8 | 0xFF) + 1);
+    }
+
+    private int lowerBound(int rawAddress) {
+        // sorting here would silently invalidate indices held by the caller
+        if (!sorted) {
+            throw new IllegalStateException("Group addresses are not sorted, call sortGroupAddresses() first");
+        }
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (addresses[mid] < rawAddress) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Releases unused capacity. Call when no more group addresses are added.
+     */
+    public void trimToSize() {
+        addresses = Arrays.copyOf(addresses, size);
+        names = Arrays.copyOf(names, size);
+        dpts = Arrays.copyOf(dpts, size);
+        strings.trimToSize();
     }
 
     public String getName() {
@@ -0,0 +1,479 @@
+/*
+ * Copyright (C) 2016 Alexander Christian <alex(at)root1.de>. All rights reserved.
+ * 
+ * This file is part of KnxProjParser.
+ *
+ *   KnxProjParser is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   KnxProjParser is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with KnxProjParser.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.root1.knxprojparser;
+
+import de.root1.schema.knxproj._1.EtsDefined;
+import de.root1.schema.knxproj._1.KnxProj;
+import de.root1.schema.knxproj._1.ObjectFactory;
+import de.root1.schema.knxproj._1.UserDefined;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.XMLGregorianCalendar;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compact binary alternative to the exported xml file, see
+ * {@link KnxProjParser#exportSnapshot(java.io.File, java.io.File)}. Holds the
+ * same content: checksum, project information, ETS defined, incomplete and
+ * user defined group addresses.
+ * <p>
+ * A snapshot is opened by memory mapping the file, see
+ * {@link #open(java.io.File)}, or by reading it to the heap, see
+ * {@link #read(java.io.File)}. Group addresses are fixed size records,
+ * strings are stored once in a string table and decoded on first access.
+ * Opening only checks the structure, no string is decoded.
+ *
+ * @author achristian
+ */
+public class ProjectSnapshot {
+
+    private static final Logger log = LoggerFactory.getLogger(ProjectSnapshot.class);
+
+    private static final int MAGIC = 0x4B50534E; // KPSN
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 52;
+    private static final int RECORD_SIZE = 16;
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    /**
+     * Group address lists contained in a snapshot
+     */
+    public enum Section {
+        /**
+         * group addresses with DPT, as found in the knx project
+         */
+        ETS_DEFINED,
+        /**
+         * group addresses without DPT, as found in the knx project
+         */
+        INCOMPLETE,
+        /**
+         * group addresses added by the user
+         */
+        USER_DEFINED
+    }
+
+    private final File file;
+    private final ByteBuffer buffer;
+    private final int[] sectionCount = new int[3];
+    private final int[] sectionPosition = new int[3];
+    private final int stringCount;
+    private final int stringOffsetsPosition;
+    private final int stringDataPosition;
+    private String[] decoded;
+
+    private ProjectSnapshot(File file, ByteBuffer buffer) throws IOException {
+        this.file = file;
+        this.buffer = buffer;
+        try {
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("Not a project snapshot: " + file.getAbsolutePath());
+            }
+            // long arithmetic, so corrupted counts cannot overflow
+            long position = HEADER_SIZE;
+            for (int i = 0; i < 3; i++) {
+                sectionCount[i] = buffer.getInt(40 + i * 4);
+                if (sectionCount[i] < 0 || position + (long) sectionCount[i] * RECORD_SIZE + 4 > buffer.limit()) {
+                    throw new IOException("Corrupted project snapshot: " + file.getAbsolutePath());
+                }
+                sectionPosition[i] = (int) position;
+                position += (long) sectionCount[i] * RECORD_SIZE;
+            }
+            stringCount = buffer.getInt((int) position);
+            if (stringCount < 0 || position + 4 + (stringCount + 1L) * 4 > buffer.limit()) {
+                throw new IOException("Corrupted project snapshot: " + file.getAbsolutePath());
+            }
+            stringOffsetsPosition = (int) position + 4;
+            stringDataPosition = stringOffsetsPosition + (stringCount + 1) * 4;
+            int previous = 0;
+            for (int i = 0; i <= stringCount; i++) {
+                int offset = buffer.getInt(stringOffsetsPosition + i * 4);
+                if (offset < previous) {
+                    throw new IOException("Corrupted project snapshot: " + file.getAbsolutePath());
+                }
+                previous = offset;
+            }
+            if ((long) stringDataPosition + previous != buffer.limit()) {
+                throw new IOException("Truncated project snapshot: " + file.getAbsolutePath());
+            }
+            for (int i = 8; i < 24; i += 4) {
+                checkStringIndex(buffer.getInt(i));
+            }
+            for (int i = 0; i < 3; i++) {
+                for (int r = 0; r < sectionCount[i]; r++) {
+                    int record = sectionPosition[i] + r * RECORD_SIZE;
+                    if ((buffer.getInt(record) & ~0xFFFF) != 0) {
+                        throw new IOException("Corrupted project snapshot: " + file.getAbsolutePath());
+                    }
+                    for (int field = 1; field < 4; field++) {
+                        checkStringIndex(buffer.getInt(record + field * 4));
+                    }
+                }
+            }
+        } catch (IndexOutOfBoundsException | BufferUnderflowException ex) {
+            throw new IOException("Truncated project snapshot: " + file.getAbsolutePath(), ex);
+        }
+    }
+
+    /**
+     * @param index index into the string table, -1 for null
+     * @throws IOException if index is not valid
+     */
+    private void checkStringIndex(int index) throws IOException {
+        if (index < -1 || index >= stringCount) {
+            throw new IOException("Corrupted project snapshot: " + file.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Opens a snapshot by memory mapping it. The mapping stays alive until the
+     * snapshot is garbage collected, and on Windows the file cannot be
+     * replaced meanwhile. Use {@link #read(java.io.File)} if the file is to
+     * be written again.
+     *
+     * @param file snapshot file
+     * @return snapshot
+     * @throws IOException if file cannot be mapped or is not a snapshot
+     */
+    public static ProjectSnapshot open(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new ProjectSnapshot(file, buffer);
+        }
+    }
+
+    /**
+     * Reads a snapshot to a heap buffer. The file is closed on return and
+     * can be replaced right away.
+     *
+     * @param file snapshot file
+     * @return snapshot
+     * @throws IOException if file cannot be read or is not a snapshot
+     */
+    public static ProjectSnapshot read(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Not a project snapshot: " + file.getAbsolutePath());
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // read until buffer is full or file ends
+            }
+            buffer.flip();
+            return new ProjectSnapshot(file, buffer);
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return checksum of the knx project file the snapshot was created from
+     */
+    public String getChecksum() {
+        return getString(buffer.getInt(8));
+    }
+
+    public String getName() {
+        return getString(buffer.getInt(12));
+    }
+
+    public String getCreatedBy() {
+        return getString(buffer.getInt(16));
+    }
+
+    public String getToolVersion() {
+        return getString(buffer.getInt(20));
+    }
+
+    public Date getLastModified() {
+        return getDate(24);
+    }
+
+    public Date getProjectStart() {
+        return getDate(32);
+    }
+
+    private Date getDate(int position) {
+        long time = buffer.getLong(position);
+        return time == NO_DATE ? null : new Date(time);
+    }
+
+    /**
+     * @param section section
+     * @return number of group addresses in section
+     */
+    public int getGroupAddressCount(Section section) {
+        return sectionCount[section.ordinal()];
+    }
+
+    private int record(Section section, int index, int field) {
+        if (index < 0 || index >= sectionCount[section.ordinal()]) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + sectionCount[section.ordinal()]);
+        }
+        return buffer.getInt(sectionPosition[section.ordinal()] + index * RECORD_SIZE + field * 4);
+    }
+
+    /**
+     * @param section section
+     * @param index 0..{@link #getGroupAddressCount(Section)}-1
+     * @return raw 16 bit group address
+     */
+    public int getRawAddress(Section section, int index) {
+        return record(section, index, 0);
+    }
+
+    public String getName(Section section, int index) {
+        return getString(record(section, index, 1));
+    }
+
+    public String getDPT(Section section, int index) {
+        return getString(record(section, index, 2));
+    }
+
+    public String getComment(Section section, int index) {
+        return getString(record(section, index, 3));
+    }
+
+    /**
+     * Decodes a string on first access
+     */
+    private synchronized String getString(int index) {
+        if (index < 0) {
+            return null;
+        }
+        if (decoded == null) {
+            decoded = new String[stringCount];
+        }
+        String s = decoded[index];
+        if (s == null) {
+            int start = buffer.getInt(stringOffsetsPosition + index * 4);
+            int end = buffer.getInt(stringOffsetsPosition + (index + 1) * 4);
+            byte[] bytes = new byte[end - start];
+            ByteBuffer slice = buffer.duplicate();
+            slice.position(stringDataPosition + start);
+            slice.get(bytes);
+            s = new String(bytes, StandardCharsets.UTF_8);
+            decoded[index] = s;
+        }
+        return s;
+    }
+
+    /**
+     * Creates the project the same way as
+     * {@link KnxProjParser#readXml(java.io.File)} does: ETS defined group
+     * addresses, replaced or complemented by user defined ones. Incomplete
+     * group addresses are not part of the project.
+     *
+     * @return project
+     */
+    public Project toProject() {
+        Project project = new Project();
+        project.setCreatedBy(getCreatedBy());
+        project.setName(getName());
+        project.setToolVersion(getToolVersion());
+        project.setLastModified(getLastModified());
+        project.setProjectStart(getProjectStart());
+
+        // user defined group addresses replace ETS defined ones
+        boolean[] userDefined = new boolean[0x10000];
+        for (int i = 0; i < getGroupAddressCount(Section.USER_DEFINED); i++) {
+            userDefined[getRawAddress(Section.USER_DEFINED, i)] = true;
+        }
+        for (int i = 0; i < getGroupAddressCount(Section.ETS_DEFINED); i++) {
+            int address = getRawAddress(Section.ETS_DEFINED, i);
+            if (!userDefined[address]) {
+                project.addGroupAddress(address, getName(Section.ETS_DEFINED, i), getDPT(Section.ETS_DEFINED, i));
+            }
+        }
+        for (int i = 0; i < getGroupAddressCount(Section.USER_DEFINED); i++) {
+            project.addGroupAddress(getRawAddress(Section.USER_DEFINED, i), getName(Section.USER_DEFINED, i), getDPT(Section.USER_DEFINED, i));
+        }
+        project.sortGroupAddresses();
+        project.trimToSize();
+        return project;
+    }
+
+    /**
+     * Converts the snapshot to the model used for the xml export
+     *
+     * @return knxproj with all sections filled
+     */
+    public KnxProj toKnxProj() {
+        ObjectFactory factory = new ObjectFactory();
+        KnxProj knxproj = factory.createKnxProj();
+
+        EtsDefined etsDefined = factory.createEtsDefined();
+        etsDefined.setChecksum(getChecksum());
+        de.root1.schema.knxproj._1.Project project = factory.createProject();
+        project.setName(getName());
+        project.setCreatedBy(getCreatedBy());
+        project.setToolVersion(getToolVersion());
+        try {
+            if (getLastModified() != null) {
+                project.setLastModified(Utils.dateToXmlDateTime(getLastModified()));
+            }
+            if (getProjectStart() != null) {
+                project.setProjectStarted(Utils.dateToXmlDateTime(getProjectStart()));
+            }
+        } catch (DatatypeConfigurationException ex) {
+            log.warn("Cannot convert XmlDateTime", ex);
+        }
+        etsDefined.setProject(project);
+        etsDefined.setGroupAddresses(factory.createGroupAddresses());
+        etsDefined.setIncompleteAddresses(factory.createIncompleteAddresses());
+        UserDefined userDefined = factory.createUserDefined();
+        userDefined.setGroupAddresses(factory.createGroupAddresses());
+
+        toKnxProj(Section.ETS_DEFINED, etsDefined.getGroupAddresses().getGroupAddress());
+        toKnxProj(Section.INCOMPLETE, etsDefined.getIncompleteAddresses().getGroupAddress());
+        toKnxProj(Section.USER_DEFINED, userDefined.getGroupAddresses().getGroupAddress());
+
+        knxproj.setEtsDefined(etsDefined);
+        knxproj.setUserDefined(userDefined);
+        return knxproj;
+    }
+
+    private void toKnxProj(Section section, List<de.root1.schema.knxproj._1.GroupAddress> list) {
+        for (int i = 0; i < getGroupAddressCount(section); i++) {
+            de.root1.schema.knxproj._1.GroupAddress ga = new de.root1.schema.knxproj._1.GroupAddress();
+            ga.setAddress(Utils.formatGroupAddress(getRawAddress(section, i)));
+            ga.setName(getName(section, i));
+            ga.setDPT(getDPT(section, i));
+            ga.setComment(getComment(section, i));
+            list.add(ga);
+        }
+    }
+
+    /**
+     * Writes a snapshot. The file is written to a temporary file first and
+     * then moved in place, so a concurrently opened snapshot is never
+     * changed. Group addresses with an invalid address are skipped.
+     *
+     * @param file target file
+     * @param knxproj content to write
+     * @throws IOException
+     */
+    public static void write(File file, KnxProj knxproj) throws IOException {
+        EtsDefined etsDefined = knxproj.getEtsDefined();
+        UserDefined userDefined = knxproj.getUserDefined();
+        de.root1.schema.knxproj._1.Project project = etsDefined.getProject();
+
+        StringPool strings = new StringPool();
+        int checksum = strings.intern(etsDefined.getChecksum());
+        int name = strings.intern(project.getName());
+        int createdBy = strings.intern(project.getCreatedBy());
+        int toolVersion = strings.intern(project.getToolVersion());
+
+        List<List<de.root1.schema.knxproj._1.GroupAddress>> sections = new ArrayList<>();
+        sections.add(etsDefined.getGroupAddresses().getGroupAddress());
+        sections.add(etsDefined.getIncompleteAddresses().getGroupAddress());
+        sections.add(userDefined.getGroupAddresses().getGroupAddress());
+
+        int[][] records = new int[3][];
+        int[] counts = new int[3];
+        for (int s = 0; s < 3; s++) {
+            List<de.root1.schema.knxproj._1.GroupAddress> list = sections.get(s);
+            records[s] = new int[list.size() * 4];
+            for (de.root1.schema.knxproj._1.GroupAddress ga : list) {
+                int address = Utils.tryParseGroupAddress(ga.getAddress());
+                if (address < 0) {
+                    log.warn("Skipping group address with invalid address '{}'", ga.getAddress());
+                    continue;
+                }
+                int r = counts[s]++ * 4;
+                records[s][r] = address;
+                records[s][r + 1] = strings.intern(ga.getName());
+                records[s][r + 2] = strings.intern(ga.getDPT());
+                records[s][r + 3] = strings.intern(ga.getComment());
+            }
+        }
+
+        File tmp = File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(checksum);
+                out.writeInt(name);
+                out.writeInt(createdBy);
+                out.writeInt(toolVersion);
+                out.writeLong(toTime(project.getLastModified()));
+                out.writeLong(toTime(project.getProjectStarted()));
+                for (int s = 0; s < 3; s++) {
+                    out.writeInt(counts[s]);
+                }
+                for (int s = 0; s < 3; s++) {
+                    for (int r = 0; r < counts[s] * 4; r++) {
+                        out.writeInt(records[s][r]);
+                    }
+                }
+
+                byte[][] bytes = new byte[strings.size()][];
+                out.writeInt(strings.size());
+                int offset = 0;
+                for (int i = 0; i < strings.size(); i++) {
+                    bytes[i] = strings.get(i).getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(offset);
+                    offset += bytes[i].length;
+                }
+                out.writeInt(offset);
+                for (byte[] b : bytes) {
+                    out.write(b);
+                }
+            }
+            try {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            tmp.delete();
+        }
+    }
+
+    private static long toTime(XMLGregorianCalendar calendar) {
+        return calendar == null ? NO_DATE : Utils.xmlDateTimeToDate(calendar).getTime();
+    }
+
+    @Override
+    public String toString() {
+        return "ProjectSnapshot{" + "file=" + file + ", name=" + getName() + ", checksum=" + getChecksum() + '}';
+    }
+
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright (C) 2016 Alexander Christian <alex(at)root1.de>. All rights reserved.
+ * 
+ * This file is part of KnxProjParser.
+ *
+ *   KnxProjParser is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   KnxProjParser is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with KnxProjParser.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.root1.knxprojparser;
+
+import de.root1.knxprojparser.project.ManufacturerCache;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Watches a directory for .knxproj files and keeps the parsed projects
+ * available. New and changed files are parsed in the background once no
+ * further events arrived for the debounce time (ETS and file shares write
+ * exports in several steps), deleted files are dropped.
+ * <p>
+ * {@link #getProject(java.io.File)} always returns the last complete parse
+ * of a file. A re-parse builds a new {@link Project} which replaces the old
+ * one only when done, so readers never wait for or see a parse in progress.
+ * Re-parses are incremental, see {@link KnxProjParser#setIncremental(boolean)}.
+ *
+ * @author achristian
+ */
+public class ProjectWatcher implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(ProjectWatcher.class);
+
+    private final Path directory;
+
+    private long debounceMillis = 2000;
+
+    private ManufacturerCache manufacturerCache = new ManufacturerCache(256);
+
+    private BatchListener listener;
+
+    /**
+     * file -> last parsed project
+     */
+    private final Map<File, Project> projects = new ConcurrentHashMap<>();
+
+    /**
+     * file -> parser, only used by the parse thread
+     */
+    private final Map<File, KnxProjParser> parsers = new HashMap<>();
+
+    /**
+     * file -> pending parse, only used by the parse thread
+     */
+    private final Map<File, ScheduledFuture<?>> pending = new HashMap<>();
+
+    private ScheduledExecutorService scheduler;
+    private WatchService watchService;
+    private Thread watchThread;
+
+    /**
+     * @param directory directory with .knxproj files, not watched
+     * recursively
+     */
+    public ProjectWatcher(File directory) {
+        this.directory = directory.getAbsoluteFile().toPath().normalize();
+    }
+
+    /**
+     * @param debounceMillis time without further events for a file before it
+     * is parsed, default 2000ms
+     */
+    public void setDebounceMillis(long debounceMillis) {
+        this.debounceMillis = debounceMillis;
+    }
+
+    /**
+     * @param manufacturerCache cache shared by all parses, default is a
+     * memory only cache
+     */
+    public void setManufacturerCache(ManufacturerCache manufacturerCache) {
+        this.manufacturerCache = manufacturerCache;
+    }
+
+    /**
+     * @param listener notified after each parse, called from the parse
+     * thread
+     */
+    public void setListener(BatchListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Parses all existing .knxproj files in the background and starts
+     * watching the directory
+     *
+     * @throws IOException if directory cannot be watched
+     */
+    public synchronized void start() throws IOException {
+        if (watchService != null) {
+            throw new IllegalStateException("Already started");
+        }
+        WatchService watchService = FileSystems.getDefault().newWatchService();
+        directory.register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ProjectWatcher-parse");
+            t.setDaemon(true);
+            return t;
+        });
+
+        File[] files = directory.toFile().listFiles((File file) -> isProjectFile(file.toPath()));
+        if (files != null) {
+            for (File file : files) {
+                schedule(scheduler, file, 0);
+            }
+        }
+
+        this.watchService = watchService;
+        this.scheduler = scheduler;
+        // the watch thread only uses its own references, close() clears the fields
+        watchThread = new Thread(() -> watch(watchService, scheduler), "ProjectWatcher-" + directory.getFileName());
+        watchThread.setDaemon(true);
+        watchThread.start();
+        log.info("Watching {}", directory);
+    }
+
+    private void watch(WatchService watchService, ScheduledExecutorService scheduler) {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        log.warn("Lost events for {}, rescanning", directory);
+                        File[] files = directory.toFile().listFiles((File file) -> isProjectFile(file.toPath()));
+                        if (files != null) {
+                            for (File file : files) {
+                                schedule(scheduler, file, debounceMillis);
+                            }
+                        }
+                        continue;
+                    }
+                    Path path = directory.resolve((Path) event.context());
+                    if (isProjectFile(path)) {
+                        log.debug("{} {}", event.kind().name(), path);
+                        schedule(scheduler, path.toFile(), debounceMillis);
+                    }
+                }
+                if (!key.reset()) {
+                    log.warn("{} is no longer accessible", directory);
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException | RejectedExecutionException ex) {
+            // closed, either while waiting for events or while scheduling
+            log.debug("Stopped watching {}", directory);
+        }
+    }
+
+    private static boolean isProjectFile(Path path) {
+        return path.getFileName().toString().toLowerCase().endsWith(".knxproj");
+    }
+
+    /**
+     * (Re-)schedules a parse, so a burst of events results in one parse
+     *
+     * @throws RejectedExecutionException if the watcher was closed
+     */
+    private void schedule(ScheduledExecutorService scheduler, File file, long delay) {
+        scheduler.execute(() -> {
+            ScheduledFuture<?> future = pending.remove(file);
+            if (future != null) {
+                future.cancel(false);
+            }
+            try {
+                pending.put(file, scheduler.schedule(() -> update(file), delay, TimeUnit.MILLISECONDS));
+            } catch (RejectedExecutionException ex) {
+                log.debug("Closed, not parsing {}", file);
+            }
+        });
+    }
+
+    private void update(File file) {
+        pending.remove(file);
+        if (!file.isFile()) {
+            parsers.remove(file);
+            if (projects.remove(file) != null) {
+                log.info("Removed {}", file);
+            }
+            return;
+        }
+        KnxProjParser parser = parsers.get(file);
+        if (parser == null) {
+            parser = new KnxProjParser();
+            parser.setIncremental(true);
+            parser.setManufacturerCache(manufacturerCache);
+            parsers.put(file, parser);
+        }
+        try {
+            parser.parse(file);
+        } catch (IOException | FileNotSupportedException | ParserException | RuntimeException ex) {
+            // file might still be written, next event triggers another try
+            log.warn("Error parsing " + file.getAbsolutePath(), ex);
+            if (listener != null) {
+                listener.failed(file, ex);
+            }
+            return;
+        }
+        projects.put(file, parser.getProject());
+        log.info("Updated {}", file);
+        if (listener != null) {
+            listener.parsed(file, parser);
+        }
+    }
+
+    /**
+     * @param file .knxproj file in the watched directory
+     * @return last parsed project, or null if not parsed (yet)
+     */
+    public Project getProject(File file) {
+        return projects.get(file.getAbsoluteFile().toPath().normalize().toFile());
+    }
+
+    /**
+     * @return unmodifiable view of all parsed projects, file -> project
+     */
+    public Map<File, Project> getProjects() {
+        return Collections.unmodifiableMap(projects);
+    }
+
+    /**
+     * Stops watching, pending parses are dropped. Parsed projects stay
+     * available.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (watchService == null) {
+            return;
+        }
+        watchService.close();
+        watchThread.interrupt();
+        scheduler.shutdownNow();
+        watchService = null;
+    }
+
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2016 Alexander Christian <alex(at)root1.de>. All rights reserved.
+ * 
+ * This file is part of KnxProjParser.
+ *
+ *   KnxProjParser is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   KnxProjParser is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with KnxProjParser.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.root1.knxprojparser;
+
+import java.util.Arrays;
+
+/**
+ * Deduplicates strings and maps them to int indices. Used by {@link Project}
+ * to store names and DPTs of group addresses as indices. Lookup uses a
+ * primitive open addressing table, which can be dropped with
+ * {@link #trimToSize()} once no more strings are added.
+ *
+ * @author achristian
+ */
+class StringPool {
+
+    private String[] strings;
+    private int size;
+
+    /**
+     * open addressing table, holds index+1 of the string, 0 for empty slots
+     */
+    private int[] table;
+
+    StringPool() {
+        strings = new String[16];
+    }
+
+    /**
+     * @param s string to add
+     * @return index of the string, -1 for null
+     */
+    int intern(String s) {
+        if (s == null) {
+            return -1;
+        }
+        if (table == null) {
+            rehash(tableSizeFor(size + 1));
+        } else if ((size + 1) * 2 > table.length) {
+            rehash(table.length * 2);
+        }
+        int mask = table.length - 1;
+        int slot = mix(s.hashCode()) & mask;
+        while (table[slot] != 0) {
+            int index = table[slot] - 1;
+            if (strings[index].equals(s)) {
+                return index;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (size == strings.length) {
+            strings = Arrays.copyOf(strings, size * 2);
+        }
+        strings[size] = s;
+        table[slot] = ++size;
+        return size - 1;
+    }
+
+    /**
+     * @param index index returned by {@link #intern(java.lang.String)}
+     * @return string, null for -1
+     */
+    String get(int index) {
+        return index < 0 ? null : strings[index];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Releases unused capacity and the lookup table. The table is rebuilt on
+     * the next {@link #intern(java.lang.String)}.
+     */
+    void trimToSize() {
+        strings = Arrays.copyOf(strings, Math.max(size, 1));
+        table = null;
+    }
+
+    private void rehash(int capacity) {
+        table = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < size; i++) {
+            int slot = mix(strings[i].hashCode()) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = i + 1;
+        }
+    }
+
+    private static int tableSizeFor(int count) {
+        int capacity = 16;
+        while (capacity < count * 2) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static int mix(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+}
@@ -1,250 +1,307 @@
-/*
- * Copyright (C) 2016 Alexander Christian <alex(at)root1.de>. All rights reserved.
- * 
- * This file is part of KnxProjParser.
- *
- *   KnxProjParser is free software: you can redistribute it and/or modify
- *   it under the terms of the GNU General Public License as published by
- *   the Free Software Foundation, either version 3 of the License, or
- *   (at your option) any later version.
- *
- *   KnxProjParser is distributed in the hope that it will be useful,
- *   but WITHOUT ANY WARRANTY; without even the implied warranty of
- *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
- *   GNU General Public License for more details.
- *
- *   You should have received a copy of the GNU General Public License
- *   along with KnxProjParser.  If not, see <http://www.gnu.org/licenses/>.
- */
-package de.root1.knxprojparser;
-
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.io.InputStream;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.text.DecimalFormat;
-import java.util.Date;
-import java.util.Enumeration;
-import java.util.GregorianCalendar;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Map;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipException;
-import java.util.zip.ZipFile;
-import javax.xml.datatype.DatatypeConfigurationException;
-import javax.xml.datatype.DatatypeFactory;
-import javax.xml.datatype.XMLGregorianCalendar;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-/**
- *
- * @author achristian
- */
-public class Utils {
-
-    private static final Logger log = LoggerFactory.getLogger(Utils.class);
-    
-    static String getKeyForValue(Map<String, List<String>> refMap, String internalId) {
-
-        Iterator<String> iterator = refMap.keySet().iterator();
-        while (iterator.hasNext()) {
-            String key = iterator.next();
-            List<String> list = refMap.get(key);
-            for (String value : list) {
-                if (value.equals(internalId)) {
-                    return key;
-                }
-            }
-        }
-        return null;
-    }
-
-    static File createTempDirectory() throws IOException {
-        final File temp;
-
-        temp = File.createTempFile("KnxProjParser", Long.toString(System.nanoTime()));
-
-        if (!(temp.delete())) {
-            throw new IOException("Could not delete temp file: " + temp.getAbsolutePath());
-        }
-
-        if (!(temp.mkdir())) {
-            throw new IOException("Could not create temp directory: " + temp.getAbsolutePath());
-        }
-        return (temp);
-    }
-
-    static void extract(File knxprojfile, File targetDir) {
-        try {
-            if (!knxprojfile.exists()) {
-                throw new IllegalArgumentException("Given file '" + knxprojfile.getAbsolutePath() + "' does not exist");
-            }
-            // Open the zip file
-            try (ZipFile zipFile = new ZipFile(knxprojfile)) {
-                Enumeration<?> enu = zipFile.entries();
-                while (enu.hasMoreElements()) {
-                    ZipEntry zipEntry = (ZipEntry) enu.nextElement();
-
-                    String name = zipEntry.getName();
-                    long size = zipEntry.getSize();
-                    long compressedSize = zipEntry.getCompressedSize();
-                    log.debug(String.format("name: %-20s | size: %6d | compressed size: %6d\n",
-                            name, size, compressedSize));
-
-                    // Do we need to create a directory ?
-                    File file = new File(targetDir, name);
-                    if (name.endsWith("/")) {
-                        file.mkdirs();
-                        continue;
-                    }
-
-                    File parent = file.getParentFile();
-                    if (parent != null) {
-                        parent.mkdirs();
-                    }
-
-                    FileOutputStream fos;
-                    // Extract the file
-                    try (InputStream is = zipFile.getInputStream(zipEntry)) {
-                        fos = new FileOutputStream(file);
-                        byte[] bytes = new byte[1024];
-                        int length;
-                        while ((length = is.read(bytes)) >= 0) {
-                            fos.write(bytes, 0, length);
-                        }
-                    }
-                    fos.close();
-
-                }
-            } catch (ZipException ex) {
-                log.error("Error opening '" + knxprojfile.getAbsolutePath() + "'", ex);
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-    }
-
-    public static int[] convertGroupAddress(int intAddr) {
-        int[] ga = new int[3];
-
-        // 1st
-        ga[0] = intAddr >> 11;
-
-        // 2nd
-        ga[1] = (intAddr >> 8) & 7;
-
-        // 3rd
-        ga[2] = intAddr & 0xFF;
-
-        return ga;
-    }
-
-    public static int[] convertIndividualAddress(int intAddr) {
-        int[] ga = new int[3];
-
-        // area
-        ga[0] = intAddr >> 12;
-        // line
-        ga[1] = (intAddr >> 8) & 7;
-        // member
-        ga[2] = intAddr & 0xFF;
-
-        return ga;
-    }
-
-    public static DecimalFormat df = new DecimalFormat("000");
-
-    public static String convertDpt(String dpt) {
-
-        int mainType = 0;
-        int subType = 0;
-
-        String result = "";
-
-        if (dpt != null && !dpt.isEmpty()) {
-
-            if (dpt.contains("DPST") || dpt.contains("DPT")) {
-                dpt = dpt.split(" ")[0];
-                String[] split = dpt.split("-");
-                if (split[0].equals("DPST")) {
-                    mainType = Integer.parseInt(split[1]);
-                    subType = Integer.parseInt(split[2]);
-                } else if (split[0].equals("DPT")) {
-                    mainType = Integer.parseInt(split[1]);
-                    subType = 0;
-                }
-            } else {
-
-                switch (dpt) {
-                    case "1 Bit":
-                        return "1.001";
-                    case "2 Bit":
-                        return "2.001";
-                    default:
-                        return "0.000";
-                }
-
-            }
-        }
-
-        result = mainType + "." + df.format(subType);
-
-        return result;
-    }
-
-    public static String byteArrayToHex(byte[] bytearray, boolean whitespace) {
-        StringBuilder sb = new StringBuilder(bytearray.length * 2);
-
-        for (int i = 0; i < bytearray.length; i++) {
-            sb.append(String.format("%02x", bytearray[i] & 0xff));
-            if (i < bytearray.length - 1 && whitespace) {
-                sb.append(" ");
-            }
-        }
-        return sb.toString();
-    }
-
-    public static XMLGregorianCalendar dateToXmlDateTime(Date d) throws DatatypeConfigurationException {
-        GregorianCalendar gcalendar = new GregorianCalendar();
-        gcalendar.setTime(d);
-        XMLGregorianCalendar xmlDate = DatatypeFactory.newInstance().newXMLGregorianCalendar(gcalendar);
-        return xmlDate;
-    }
-    
-    public static Date xmlDateTimeToDate(XMLGregorianCalendar x) {
-        GregorianCalendar gcalendar = x.toGregorianCalendar();
-        return gcalendar.getTime();
-    }
-
-    /**
-     * CReates (sha256) checksum for given file
-     *
-     * @param f
-     * @return
-     * @throws NoSuchAlgorithmException
-     * @throws IOException
-     */
-    public static String createChecksum(File f) throws NoSuchAlgorithmException, IOException {
-        InputStream fis = new FileInputStream(f);
-
-        byte[] buffer = new byte[1024];
-        MessageDigest complete = MessageDigest.getInstance("SHA1");
-        int numRead;
-
-        do {
-            numRead = fis.read(buffer);
-            if (numRead > 0) {
-                complete.update(buffer, 0, numRead);
-            }
-        } while (numRead != -1);
-
-        fis.close();
-        return byteArrayToHex(complete.digest(), false);
-    }
-
-}
+/*
+ * Copyright (C) 2016 Alexander Christian <alex(at)root1.de>. All rights reserved.
+ * 
+ * This file is part of KnxProjParser.
+ *
+ *   KnxProjParser is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   KnxProjParser is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with KnxProjParser.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.root1.knxprojparser;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.DecimalFormat;
+import java.util.Date;
+import java.util.Enumeration;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ *
+ * @author achristian
+ */
+public class Utils {
+
+    private static final Logger log = LoggerFactory.getLogger(Utils.class);
+    
+    public static int[] convertGroupAddress(int intAddr) {
+        int[] ga = new int[3];
+
+        // 1st
+        ga[0] = intAddr >> 11;
+
+        // 2nd
+        ga[1] = (intAddr >> 8) & 7;
+
+        // 3rd
+        ga[2] = intAddr & 0xFF;
+
+        return ga;
+    }
+
+    /**
+     * Formats a raw group address as main/middle/sub, f.i. 1/1/100
+     *
+     * @param intAddr raw 16 bit group address
+     * @return textual group address
+     */
+    public static String formatGroupAddress(int intAddr) {
+        return (intAddr >> 11) + "/" + ((intAddr >> 8) & 7) + "/" + (intAddr & 0xFF);
+    }
+
+    /**
+     * Parses a textual group address. Accepts three level (main/middle/sub),
+     * two level (main/sub) and free (raw number) notation.
+     *
+     * @param ga f.i. 1/1/100
+     * @return raw 16 bit group address
+     * @throws IllegalArgumentException if ga is not a valid group address
+     */
+    public static int parseGroupAddress(String ga) {
+        int address = tryParseGroupAddress(ga);
+        if (address < 0) {
+            throw new IllegalArgumentException("Invalid group address: " + ga);
+        }
+        return address;
+    }
+
+    /**
+     * Like {@link #parseGroupAddress(java.lang.String)}, but returns -1
+     * instead of throwing an exception. Does not allocate.
+     *
+     * @param ga f.i. 1/1/100
+     * @return raw 16 bit group address, or -1 if ga is not valid
+     */
+    public static int tryParseGroupAddress(String ga) {
+        if (ga == null) {
+            return -1;
+        }
+        int p0 = 0;
+        int p1 = 0;
+        int count = 0;
+        int value = -1;
+        for (int i = 0; i < ga.length(); i++) {
+            char c = ga.charAt(i);
+            if (c >= '0' && c <= '9') {
+                value = (value < 0 ? 0 : value * 10) + (c - '0');
+                if (value > 0xFFFF) {
+                    return -1;
+                }
+            } else if (c == '/' && value >= 0 && count < 2) {
+                if (count == 0) {
+                    p0 = value;
+                } else {
+                    p1 = value;
+                }
+                count++;
+                value = -1;
+            } else {
+                return -1;
+            }
+        }
+        if (value < 0) {
+            return -1;
+        }
+
+        switch (count) {
+            case 2:
+                // main/middle/sub
+                return p0 <= 31 && p1 <= 7 && value <= 255 ? p0 << 11 | p1 << 8 | value : -1;
+            case 1:
+                // main/sub
+                return p0 <= 31 && value <= 2047 ? p0 << 11 | value : -1;
+            default:
+                return value;
+        }
+    }
+
+    public static int[] convertIndividualAddress(int intAddr) {
+        int[] ga = new int[3];
+
+        // area
+        ga[0] = intAddr >> 12;
+        // line
+        ga[1] = (intAddr >> 8) & 7;
+        // member
+        ga[2] = intAddr & 0xFF;
+
+        return ga;
+    }
+
+    /**
+     * @deprecated DecimalFormat is not thread safe, use {@link Dpt}
+     */
+    @Deprecated
+    public static DecimalFormat df = new DecimalFormat("000");
+
+    /**
+     * Converts a DPT as found in project and manufacturer files to its
+     * textual form, see {@link Dpt#parse(java.lang.String)}
+     *
+     * @param dpt f.i. DPST-5-1
+     * @return f.i. 5.001, 0.000 if not known
+     */
+    public static String convertDpt(String dpt) {
+        return Dpt.parse(dpt).getId();
+    }
+
+    public static String byteArrayToHex(byte[] bytearray, boolean whitespace) {
+        StringBuilder sb = new StringBuilder(bytearray.length * 2);
+
+        for (int i = 0; i < bytearray.length; i++) {
+            sb.append(String.format("%02x", bytearray[i] & 0xff));
+            if (i < bytearray.length - 1 && whitespace) {
+                sb.append(" ");
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * DatatypeFactory lookup is expensive, the instance itself is thread
+     * safe. Created on first use.
+     */
+    private static class DatatypeFactoryHolder {
+
+        private static final DatatypeFactory INSTANCE;
+        private static final DatatypeConfigurationException ERROR;
+
+        static {
+            DatatypeFactory factory = null;
+            DatatypeConfigurationException error = null;
+            try {
+                factory = DatatypeFactory.newInstance();
+            } catch (DatatypeConfigurationException ex) {
+                error = ex;
+            }
+            INSTANCE = factory;
+            ERROR = error;
+        }
+    }
+
+    /**
+     * Converts a date, using a shared DatatypeFactory
+     *
+     * @param d date
+     * @return date as xml dateTime in the default time zone
+     * @throws DatatypeConfigurationException if no DatatypeFactory is
+     * available, kept for compatibility
+     */
+    public static XMLGregorianCalendar dateToXmlDateTime(Date d) throws DatatypeConfigurationException {
+        if (DatatypeFactoryHolder.INSTANCE == null) {
+            throw new DatatypeConfigurationException("No DatatypeFactory available", DatatypeFactoryHolder.ERROR);
+        }
+        GregorianCalendar gcalendar = new GregorianCalendar();
+        gcalendar.setTime(d);
+        return DatatypeFactoryHolder.INSTANCE.newXMLGregorianCalendar(gcalendar);
+    }
+    
+    public static Date xmlDateTimeToDate(XMLGregorianCalendar x) {
+        GregorianCalendar gcalendar = x.toGregorianCalendar();
+        return gcalendar.getTime();
+    }
+
+    /**
+     * CReates (sha256) checksum for given file
+     *
+     * @param f
+     * @return
+     * @throws NoSuchAlgorithmException
+     * @throws IOException
+     */
+    public static String createChecksum(File f) throws NoSuchAlgorithmException, IOException {
+        InputStream fis = new FileInputStream(f);
+
+        byte[] buffer = new byte[1024];
+        MessageDigest complete = MessageDigest.getInstance("SHA1");
+        int numRead;
+
+        do {
+            numRead = fis.read(buffer);
+            if (numRead > 0) {
+                complete.update(buffer, 0, numRead);
+            }
+        } while (numRead != -1);
+
+        fis.close();
+        return byteArrayToHex(complete.digest(), false);
+    }
+
+    /**
+     * Creates a fingerprint for given .knxproj file or project folder without
+     * reading the content. For a .knxproj file, name, CRC and sizes of all
+     * entries are taken from the zip central directory, for a folder name,
+     * size and modification time of all files. Size and modification time of
+     * the file itself are included as well.
+     * <p>
+     * Much faster than {@link #createChecksum(java.io.File)}, but a project
+     * which is only touched gets a different fingerprint.
+     *
+     * @param f .knxproj file or folder with extracted project
+     * @return (sha1) hash over the metadata
+     * @throws NoSuchAlgorithmException
+     * @throws IOException
+     */
+    public static String createFingerprint(File f) throws NoSuchAlgorithmException, IOException {
+        MessageDigest complete = MessageDigest.getInstance("SHA1");
+        StringBuilder sb = new StringBuilder();
+        if (f.isFile()) {
+            sb.append(f.length()).append(';').append(f.lastModified()).append('\n');
+            // opening the zip only reads the central directory
+            try (ZipFile zipFile = new ZipFile(f)) {
+                Enumeration<? extends ZipEntry> entries = zipFile.entries();
+                while (entries.hasMoreElements()) {
+                    ZipEntry entry = entries.nextElement();
+                    sb.append(entry.getName()).append(';')
+                            .append(entry.getCrc()).append(';')
+                            .append(entry.getSize()).append(';')
+                            .append(entry.getCompressedSize()).append('\n');
+                    complete.update(sb.toString().getBytes(StandardCharsets.UTF_8));
+                    sb.setLength(0);
+                }
+            }
+        } else {
+            Path base = f.toPath();
+            List<Path> files;
+            try (Stream<Path> paths = Files.walk(base)) {
+                files = paths.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+            }
+            for (Path file : files) {
+                sb.append(base.relativize(file).toString().replace(File.separatorChar, '/')).append(';')
+                        .append(Files.size(file)).append(';')
+                        .append(Files.getLastModifiedTime(file).toMillis()).append('\n');
+                complete.update(sb.toString().getBytes(StandardCharsets.UTF_8));
+                sb.setLength(0);
+            }
+        }
+        complete.update(sb.toString().getBytes(StandardCharsets.UTF_8));
+        return byteArrayToHex(complete.digest(), false);
+    }
+
+}
@@ -1,169 +1,809 @@
-/*
- * Copyright (C) 2016 Alexander Christian <alex(at)root1.de>. All rights reserved.
- * 
- * This file is part of KnxProjParser.
- *
- *   KnxProjParser is free software: you can redistribute it and/or modify
- *   it under the terms of the GNU General Public License as published by
- *   the Free Software Foundation, either version 3 of the License, or
- *   (at your option) any later version.
- *
- *   KnxProjParser is distributed in the hope that it will be useful,
- *   but WITHOUT ANY WARRANTY; without even the implied warranty of
- *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
- *   GNU General Public License for more details.
- *
- *   You should have received a copy of the GNU General Public License
- *   along with KnxProjParser.  If not, see <http://www.gnu.org/licenses/>.
- */
-package de.root1.knxprojparser.project;
-
-import de.root1.knxprojparser.GroupAddress;
-import java.io.File;
-import java.net.URL;
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Objects;
-import javax.xml.XMLConstants;
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.JAXBException;
-import javax.xml.bind.Unmarshaller;
-import javax.xml.validation.Schema;
-import javax.xml.validation.SchemaFactory;
-import org.xml.sax.SAXException;
-
-/**
- *
- * @author achristian
- */
-public abstract class AbstractKnxParser <T>{
-
-    final File baseFolder;
-    boolean parsed;
-
-    static class GroupAddressContainer {
-
-        private String ga;
-        private String name;
-        private String refId;
-
-        public GroupAddressContainer(String ga, String name, String refId) {
-            this.ga = ga;
-            this.name = name;
-            this.refId = refId;
-        }
-
-        public String getGa() {
-            return ga;
-        }
-
-        public String getName() {
-            return name;
-        }
-
-        public String getRefId() {
-            return refId;
-        }
-
-        @Override
-        public String toString() {
-            return "GroupAddressContainer{" + "ga=" + ga + ", name=" + name + ", refId=" + refId + '}';
-        }
-
-        @Override
-        public int hashCode() {
-            int hash = 7;
-            hash = 79 * hash + Objects.hashCode(this.refId);
-            return hash;
-        }
-
-        @Override
-        public boolean equals(Object obj) {
-            if (this == obj) {
-                return true;
-            }
-            if (obj == null) {
-                return false;
-            }
-            if (getClass() != obj.getClass()) {
-                return false;
-            }
-            final GroupAddressContainer other = (GroupAddressContainer) obj;
-            if (!Objects.equals(this.refId, other.refId)) {
-                return false;
-            }
-            return true;
-        }
-
-    }
-
-    private static final Map<String, Unmarshaller> UNMARSHELLER_MAP = new HashMap<>();
-
-    private final URL XSD_PROJECT;
-    private final SchemaFactory SCHEMA_FACTORY = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-    private final Schema schema;
-
-    final List<de.root1.knxprojparser.GroupAddress> gaList = new ArrayList<>();
-    final de.root1.knxprojparser.Project project = new de.root1.knxprojparser.Project();
-
-    AbstractKnxParser(String resource, File f) throws SAXException {
-        XSD_PROJECT = AbstractKnxParser.class.getResource(resource);
-        schema = SCHEMA_FACTORY.newSchema(XSD_PROJECT);
-        this.baseFolder = f;
-    }
-
-    private Unmarshaller getCachedUnmarsheller(String name) throws JAXBException {
-        Unmarshaller unmarshaller = UNMARSHELLER_MAP.get(name);
-        if (unmarshaller == null) {
-            unmarshaller = JAXBContext.newInstance(name).createUnmarshaller();
-            UNMARSHELLER_MAP.put(name, unmarshaller);
-        }
-        return unmarshaller;
-    }
-
-    <T> T readXML(File xmlDatei, Class<T> clss)
-            throws JAXBException, SAXException {
-        Unmarshaller unmarshaller = getCachedUnmarsheller(clss.getPackage().getName());
-        unmarshaller.setSchema(schema);
-        return clss.cast(unmarshaller.unmarshal(xmlDatei));
-
-    }
-    
-    public abstract void parse() throws ParseException;
-
-    public de.root1.knxprojparser.Project getProject() {
-        
-        List<GroupAddress> groupaddressList = project.getGroupaddressList();
-        groupaddressList.sort(new Comparator<GroupAddress>(){
-            @Override
-            public int compare(GroupAddress o1, GroupAddress o2) {
-                
-                String[] ga1 = o1.getAddress().split("/");
-                String[] ga2 = o2.getAddress().split("/");
-                
-                int i1 = Integer.parseInt(ga1[0]) <<11 | Integer.parseInt(ga1[1]) <<8 | Integer.parseInt(ga1[2]);
-                int i2 = Integer.parseInt(ga2[0]) <<11 | Integer.parseInt(ga2[1]) <<8 | Integer.parseInt(ga2[2]);
-                
-                if (i1<i2) {
-                    return -1;
-                }
-                if (i1>i2) {
-                    return 1;
-                }
-                return 0;
-            }
-            
-        });
-        return project;
-    }
-    
-    public boolean isParsed() {
-        return parsed;
-    };
-    
-    public abstract boolean parserMatch();
-
-}
+/*
+ * Copyright (C) 2016 Alexander Christian <alex(at)root1.de>. All rights reserved.
+ * 
+ * This file is part of KnxProjParser.
+ *
+ *   KnxProjParser is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   KnxProjParser is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with KnxProjParser.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.root1.knxprojparser.project;
+
+import de.root1.knxprojparser.GroupAddressListener;
+import de.root1.knxprojparser.JaxbRegistry;
+import de.root1.knxprojparser.ParseProgressListener;
+import de.root1.knxprojparser.ParseReport;
+import de.root1.knxprojparser.Utils;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.datatype.XMLGregorianCalendar;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+/**
+ * Schema independent parser engine. Reads project information, group
+ * addresses, topology connectors and ComObjectRef DPTs; the subclasses only
+ * adapt the JAXB classes of their schema version for project.xml. 0.xml and
+ * the manufacturer files are streamed with StAX, see
+ * {@link InstallationReader} and {@link ApplicationProgramReader}.
+ *
+ * @author achristian
+ * @param <T> generated root element class (KNX) of the schema version
+ */
+public abstract class AbstractKnxParser <T>{
+
+    private static final Logger log = LoggerFactory.getLogger(AbstractKnxParser.class);
+
+    final ProjectSource source;
+    boolean parsed;
+
+    /**
+     * executor for reading manufacturer files concurrently, null for
+     * sequential reading
+     */
+    private Executor executor;
+
+    /**
+     * cache for DPTs of manufacturer files, null if disabled
+     */
+    private ManufacturerCache manufacturerCache;
+
+    private ParseReport report = new ParseReport();
+
+    /**
+     * true to record a {@link ParseState} for an incremental re-parse
+     */
+    private boolean incremental;
+
+    /**
+     * state of the previous parse, files unchanged since are not read again
+     */
+    private ParseState previousState;
+
+    /**
+     * state of this parse, null if not incremental
+     */
+    private ParseState state;
+
+    private ValidationPolicy validationPolicy = ValidationPolicy.PROJECT_ONLY;
+
+    /**
+     * topology of the last parse
+     */
+    private Topology topology;
+
+    /**
+     * receives the progress, null if not of interest
+     */
+    private ParseProgressListener progressListener;
+
+    /**
+     * true, once the parse is to be aborted; null if it cannot be cancelled
+     */
+    private BooleanSupplier cancelled;
+
+    /**
+     * group addresses between two progress events and cancellation checks
+     * during DPT resolution
+     */
+    private static final int PROGRESS_INTERVAL = 1024;
+
+    static class GroupAddressContainer {
+
+        private int address;
+        private String name;
+        private String refId;
+
+        public GroupAddressContainer(int address, String name, String refId) {
+            this.address = address;
+            this.name = name;
+            this.refId = refId;
+        }
+
+        /**
+         * @return raw 16 bit group address
+         */
+        public int getAddress() {
+            return address;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getRefId() {
+            return refId;
+        }
+
+        @Override
+        public String toString() {
+            return "GroupAddressContainer{" + "ga=" + Utils.formatGroupAddress(address) + ", name=" + name + ", refId=" + refId + '}';
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 7;
+            hash = 79 * hash + Objects.hashCode(this.refId);
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null) {
+                return false;
+            }
+            if (getClass() != obj.getClass()) {
+                return false;
+            }
+            final GroupAddressContainer other = (GroupAddressContainer) obj;
+            if (!Objects.equals(this.refId, other.refId)) {
+                return false;
+            }
+            return true;
+        }
+
+    }
+
+    private final String namespace;
+    private final String schemaResource;
+    private final Class<T> rootClass;
+
+    final de.root1.knxprojparser.Project project = new de.root1.knxprojparser.Project();
+
+    /**
+     * @param namespace namespace of the supported schema version, f.i.
+     * http://knx.org/xml/project/14
+     * @param resource classpath resource of the schema, f.i.
+     * /xsd/project/Project_14.xsd
+     * @param rootClass generated JAXB class of the root element
+     * @param source project to read
+     * @throws SAXException never, schema is loaded on first validation
+     */
+    AbstractKnxParser(String namespace, String resource, Class<T> rootClass, ProjectSource source) throws SAXException {
+        this.namespace = namespace;
+        this.schemaResource = resource;
+        this.rootClass = rootClass;
+        this.source = source;
+    }
+
+    <T> T readXML(String entry, Class<T> clss)
+            throws JAXBException, SAXException, IOException {
+        Unmarshaller unmarshaller = JaxbRegistry.getUnmarshaller(clss.getPackage().getName());
+        unmarshaller.setSchema(validationPolicy == ValidationPolicy.NONE ? null : getSchema());
+        try (InputStream in = open(entry)) {
+            return clss.cast(unmarshaller.unmarshal(in));
+        }
+    }
+
+    /**
+     * Opens an entry of the project. If the parse can be cancelled, every
+     * read checks for cancellation, so even huge files are left quickly.
+     *
+     * @param entry f.i. P-0B09/0.xml
+     * @return stream, to be closed by the caller
+     * @throws IOException
+     */
+    InputStream open(String entry) throws IOException {
+        InputStream in = source.getInputStream(entry);
+        BooleanSupplier cancelled = this.cancelled;
+        if (cancelled == null) {
+            return in;
+        }
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                checkRead();
+                return super.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                checkRead();
+                return super.read(b, off, len);
+            }
+
+            private void checkRead() throws InterruptedIOException {
+                if (cancelled.getAsBoolean()) {
+                    // XML parsers wrap this, read() turns it into a CancellationException
+                    throw new InterruptedIOException("Parse of " + entry + " cancelled");
+                }
+            }
+        };
+    }
+
+    /**
+     * @throws CancellationException if the parse is to be aborted
+     */
+    private void checkCancelled() {
+        if (cancelled != null && cancelled.getAsBoolean()) {
+            throw new CancellationException("Parse of " + source.getFile().getAbsolutePath() + " cancelled");
+        }
+    }
+
+    private void progress(String stage, int done, int total) {
+        if (progressListener != null) {
+            progressListener.progress(stage, done, total);
+        }
+    }
+
+    /**
+     * @return compiled schema of this version, shared process wide
+     * @throws SAXException if schema cannot be loaded
+     */
+    Schema getSchema() throws SAXException {
+        return JaxbRegistry.getSchema(schemaResource);
+    }
+
+    /**
+     * Validates the given entry against the schema of this version
+     *
+     * @param entry f.i. M-0083/M-0083_A-0026-14-05BA.xml
+     * @param errorHandler receives validation errors, or null to fail on
+     * first error
+     * @throws SAXException on first error, if no error handler is given
+     * @throws IOException
+     */
+    void validate(String entry, ErrorHandler errorHandler) throws SAXException, IOException {
+        Validator validator = getSchema().newValidator();
+        if (errorHandler != null) {
+            validator.setErrorHandler(errorHandler);
+        }
+        try (InputStream in = open(entry)) {
+            validator.validate(new StreamSource(in, entry));
+        }
+    }
+
+    /**
+     * Validates all files read by the parser against the schema: the files of
+     * the project folder and all application program files, regardless of the
+     * {@link ValidationPolicy} used for parsing. Catalog, hardware and master
+     * data are not covered by the schema and are skipped. Does not stop at
+     * the first error.
+     *
+     * @return validation errors, f.i. "P-0B09/0.xml:12:34: cvc-...", empty if
+     * project is valid
+     * @throws IOException
+     * @throws SAXException if schema cannot be loaded
+     */
+    public List<String> validate() throws IOException, SAXException {
+        List<String> errors = new ArrayList<>();
+        for (String entry : source.getEntries()) {
+            boolean projectFile = entry.startsWith("P-") && entry.indexOf('/') > 0;
+            if (!entry.toLowerCase().endsWith(".xml") || !(projectFile || isManufacturerFile(entry))) {
+                continue;
+            }
+            log.debug("Validating {}", entry);
+            ErrorHandler errorHandler = new ErrorHandler() {
+                @Override
+                public void warning(SAXParseException ex) {
+                    log.debug("{}: {}", entry, ex.getMessage());
+                }
+
+                @Override
+                public void error(SAXParseException ex) {
+                    errors.add(entry + ":" + ex.getLineNumber() + ":" + ex.getColumnNumber() + ": " + ex.getMessage());
+                }
+
+                @Override
+                public void fatalError(SAXParseException ex) throws SAXParseException {
+                    error(ex);
+                    throw ex;
+                }
+            };
+            try {
+                validate(entry, errorHandler);
+            } catch (SAXParseException ex) {
+                // fatal error already recorded, continue with next file
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * Unmarshals the given entry to the root element class of this schema
+     * version
+     *
+     * @param entry f.i. P-0B09/0.xml
+     * @return root element
+     * @throws JAXBException
+     * @throws SAXException
+     * @throws IOException
+     */
+    T readRoot(String entry) throws JAXBException, SAXException, IOException {
+        return readXML(entry, rootClass);
+    }
+
+    /**
+     * Checks whether the root element in knx_master.xml uses the given
+     * namespace
+     *
+     * @param namespace f.i. http://knx.org/xml/project/14
+     * @return true, if namespace matches
+     */
+    boolean knxMasterMatches(String namespace) {
+        try {
+            return namespace.equals(source.getNamespace());
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Copies the project information from project.xml to the resulting
+     * project
+     *
+     * @param projectXML root element of project.xml
+     */
+    abstract void readProjectInformation(T projectXML);
+
+    /**
+     * Streams the installation in 0.xml and reports all group addresses and
+     * connectors to the given handler. Validates the file first, unless
+     * validation policy is {@link ValidationPolicy#NONE}.
+     *
+     * @param installationFile f.i. P-0B09/0.xml
+     * @param handler receives group addresses and connections
+     * @throws SAXException if validation failed
+     * @throws IOException
+     * @throws XMLStreamException
+     */
+    void readInstallation(String installationFile, InstallationHandler handler) throws SAXException, IOException, XMLStreamException {
+        if (validationPolicy != ValidationPolicy.NONE) {
+            validate(installationFile, null);
+        }
+        try (InputStream in = open(installationFile)) {
+            InstallationReader.read(in, handler);
+        }
+    }
+
+    /**
+     * Sets the project information of the resulting project
+     */
+    void setProjectInformation(String createdBy, String toolVersion, String name, XMLGregorianCalendar lastModified, XMLGregorianCalendar projectStart) {
+        log.debug("CreatedBy={}", createdBy);
+        log.debug("ToolVersion={}", toolVersion);
+        log.debug("Name={}", name);
+
+        project.setCreatedBy(createdBy);
+        project.setToolVersion(toolVersion);
+
+        if (lastModified != null) {
+            log.debug("LastModified={}", lastModified.toGregorianCalendar().getTime());
+            project.setLastModified(lastModified.toGregorianCalendar().getTime());
+        }
+
+        project.setName(name);
+        if (projectStart != null) {
+            project.setProjectStart(projectStart.toGregorianCalendar().getTime());
+        }
+    }
+
+    /**
+     * Lists the application program files of all manufacturer folders which
+     * have to be read, see {@link Topology#isReferenced(java.lang.String)}
+     *
+     * @param topology topology of the installation
+     * @return entries, f.i. M-0083/M-0083_A-0026-14-05BA.xml
+     */
+    List<String> getManufacturerFiles(Topology topology) {
+        List<String> manufacturerFiles = new ArrayList<>();
+        for (String entry : source.getEntries()) {
+            if (isManufacturerFile(entry) && topology.isReferenced(entry)) {
+                manufacturerFiles.add(entry);
+            }
+        }
+        return manufacturerFiles;
+    }
+
+    /**
+     * @param entry f.i. M-0083/M-0083_A-0026-14-05BA.xml
+     * @return true, if entry is an application program file of a
+     * manufacturer folder
+     */
+    static boolean isManufacturerFile(String entry) {
+        int i = entry.indexOf('/');
+        return i > 0 && entry.startsWith("M-") && entry.indexOf('/', i + 1) < 0
+                && entry.startsWith(entry.substring(0, i), i + 1);
+    }
+
+    /**
+     * Reads all referenced manufacturer files, see
+     * {@link #getManufacturerFiles(Topology)}. If an executor is set, the
+     * files are read concurrently. Results are merged in file order, so the
+     * result is the same as reading them one after another.
+     *
+     * @param topology topology of the installation
+     * @return {ComObjectRef.Id} -> DPT String
+     * @throws IOException
+     * @throws XMLStreamException
+     * @throws SAXException if validation failed, see
+     * {@link ValidationPolicy#FULL}
+     */
+    Map<String, String> readManufacturerFiles(Topology topology) throws IOException, XMLStreamException, SAXException {
+        List<String> manufacturerFiles = getManufacturerFiles(topology);
+        report.setManufacturerFileCount(manufacturerFiles.size());
+        Map<String, String> comObjRef_to_dpt_map = new HashMap<>();
+        int total = manufacturerFiles.size();
+        AtomicInteger done = new AtomicInteger();
+        progress(ParseReport.MANUFACTURER_FILE, 0, total);
+
+        if (executor == null || manufacturerFiles.size() < 2) {
+            for (String manufacturerFile : manufacturerFiles) {
+                checkCancelled();
+                comObjRef_to_dpt_map.putAll(readManufacturerFile(manufacturerFile));
+                progress(ParseReport.MANUFACTURER_FILE, done.incrementAndGet(), total);
+            }
+            return comObjRef_to_dpt_map;
+        }
+
+        List<CompletableFuture<Map<String, String>>> futures = new ArrayList<>();
+        for (String manufacturerFile : manufacturerFiles) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    checkCancelled();
+                    Map<String, String> dpts = readManufacturerFile(manufacturerFile);
+                    progress(ParseReport.MANUFACTURER_FILE, done.incrementAndGet(), total);
+                    return dpts;
+                } catch (IOException | XMLStreamException | SAXException ex) {
+                    throw new CompletionException(ex);
+                }
+            }, executor));
+        }
+
+        try {
+            for (CompletableFuture<Map<String, String>> future : futures) {
+                comObjRef_to_dpt_map.putAll(future.join());
+            }
+        } catch (CompletionException ex) {
+            for (CompletableFuture<Map<String, String>> future : futures) {
+                future.cancel(false);
+            }
+            Throwable cause = ex.getCause();
+            if (cause instanceof CancellationException) {
+                throw (CancellationException) cause;
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof XMLStreamException) {
+                throw (XMLStreamException) cause;
+            }
+            if (cause instanceof SAXException) {
+                throw (SAXException) cause;
+            }
+            throw ex;
+        }
+        return comObjRef_to_dpt_map;
+    }
+
+    private Map<String, String> readManufacturerFile(String manufacturerFile) throws IOException, XMLStreamException, SAXException {
+        ParseReport.Measurement measurement = report.start(ParseReport.MANUFACTURER_FILE, manufacturerFile);
+        try {
+            return readManufacturerFileMeasured(manufacturerFile);
+        } finally {
+            measurement.stop();
+        }
+    }
+
+    private Map<String, String> readManufacturerFileMeasured(String manufacturerFile) throws IOException, XMLStreamException, SAXException {
+        String fingerprint = null;
+        if (state != null || previousState != null || manufacturerCache != null) {
+            fingerprint = source.getFingerprint(manufacturerFile);
+        }
+
+        Map<String, String> comObjRef_to_dpt_map = null;
+        if (previousState != null && previousState.isUnchanged(manufacturerFile, fingerprint)) {
+            log.debug("Unchanged since last parse: {}", manufacturerFile);
+            comObjRef_to_dpt_map = previousState.manufacturerDpts.get(manufacturerFile);
+        }
+
+        String applicationProgramId = getApplicationProgramId(manufacturerFile);
+        if (comObjRef_to_dpt_map == null && manufacturerCache != null) {
+            comObjRef_to_dpt_map = manufacturerCache.get(applicationProgramId, fingerprint);
+            if (comObjRef_to_dpt_map != null) {
+                log.debug("Using cached DPTs for {}", manufacturerFile);
+            }
+        }
+
+        if (comObjRef_to_dpt_map == null) {
+            if (validationPolicy == ValidationPolicy.FULL) {
+                validate(manufacturerFile, null);
+            }
+            log.debug("Parsing {}", manufacturerFile);
+            try (InputStream in = open(manufacturerFile)) {
+                comObjRef_to_dpt_map = ApplicationProgramReader.read(in);
+            }
+            if (manufacturerCache != null) {
+                manufacturerCache.put(applicationProgramId, fingerprint, comObjRef_to_dpt_map);
+            }
+        }
+
+        if (state != null) {
+            state.put(manufacturerFile, fingerprint);
+            state.manufacturerDpts.put(manufacturerFile, comObjRef_to_dpt_map);
+        }
+        return comObjRef_to_dpt_map;
+    }
+
+    /**
+     * @param manufacturerFile f.i. M-0083/M-0083_A-0026-14-05BA.xml
+     * @return application program ID, f.i. M-0083_A-0026-14-05BA
+     */
+    static String getApplicationProgramId(String manufacturerFile) {
+        String name = manufacturerFile.substring(manufacturerFile.lastIndexOf('/') + 1);
+        if (name.endsWith(".xml")) {
+            name = name.substring(0, name.length() - 4);
+        }
+        return name;
+    }
+
+    /**
+     * Sets the executor used to read manufacturer files concurrently.
+     *
+     * @param executor executor to use, or null to read files sequentially
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Sets the cache for DPTs of manufacturer files.
+     *
+     * @param manufacturerCache cache to use, or null to always read the files
+     */
+    public void setManufacturerCache(ManufacturerCache manufacturerCache) {
+        this.manufacturerCache = manufacturerCache;
+    }
+
+    /**
+     * @param validationPolicy files to validate while parsing, default
+     * {@link ValidationPolicy#PROJECT_ONLY}
+     */
+    public void setValidationPolicy(ValidationPolicy validationPolicy) {
+        this.validationPolicy = validationPolicy;
+    }
+
+    /**
+     * Enables incremental parsing. Once parsed, {@link #getState()} returns
+     * the state to pass to the parser of the next parse of the same project
+     * using {@link #setPreviousState(ParseState)}.
+     *
+     * @param incremental true to record state
+     */
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    /**
+     * Sets the state of a previous parse. Files which did not change since
+     * are not read again. Ignored if the state belongs to another project or
+     * schema version.
+     *
+     * @param previousState state returned by {@link #getState()}, or null
+     */
+    public void setPreviousState(ParseState previousState) {
+        this.previousState = previousState;
+    }
+
+    /**
+     * @return state for an incremental re-parse, null if not incremental or
+     * not parsed
+     */
+    public ParseState getState() {
+        return parsed ? state : null;
+    }
+
+    /**
+     * @param progressListener receives the progress of the parse, or null
+     */
+    public void setProgressListener(ParseProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Makes the parse cancellable. The condition is checked between the
+     * files, while reading a file and while resolving DPTs. Once it is true,
+     * the parse is aborted with a {@link CancellationException}.
+     *
+     * @param cancelled condition to abort the parse, or null if the parse
+     * cannot be cancelled
+     */
+    public void setCancellation(BooleanSupplier cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    /**
+     * Sets the report the stages of this parser are recorded to
+     *
+     * @param report report to use
+     */
+    public void setParseReport(ParseReport report) {
+        this.report = report;
+    }
+
+    public ParseReport getParseReport() {
+        return report;
+    }
+
+    public void parse() throws ParseException {
+        read(project::addGroupAddress);
+        project.trimToSize();
+        parsed = true;
+    }
+
+    /**
+     * Parses the project, but instead of collecting the group addresses in
+     * the project, each one is passed to the listener as soon as its DPT is
+     * resolved. Memory use is bounded by the topology and the DPT tables of
+     * the manufacturer files. {@link #getProject()} only holds the project
+     * information afterwards.
+     *
+     * @param listener receives all group addresses
+     * @throws ParseException
+     */
+    public void parse(GroupAddressListener listener) throws ParseException {
+        read(listener);
+    }
+
+    private void read(GroupAddressListener listener) throws ParseException {
+        List<String> projectFolders = source.getFolders("P-");
+        if (projectFolders.size() != 1) {
+            throw new ParseException("Can only handle 1 project in knxproj file. Found " + projectFolders.size() + ": " + projectFolders);
+        }
+
+        String projectFolder = projectFolders.get(0);
+
+        // ETS4 uses Project.xml
+        String projectFile = projectFolder + "/project.xml";
+        if (!source.contains(projectFile)) {
+            projectFile = projectFolder + "/Project.xml";
+        }
+
+        if (previousState != null && !previousState.matches(source.getFile(), namespace)) {
+            log.debug("Ignoring state of other project {}", previousState);
+            previousState = null;
+        }
+        state = incremental ? new ParseState(source.getFile(), namespace) : null;
+
+        try {
+            ParseReport.Measurement measurement = report.start(ParseReport.PROJECT, projectFile);
+            // a previous state is used even if this parse records none
+            boolean fingerprints = state != null || previousState != null;
+            String fingerprint = fingerprints ? source.getFingerprint(projectFile) : null;
+            if (previousState != null && previousState.isUnchanged(projectFile, fingerprint)) {
+                log.debug("Unchanged since last parse: {}", projectFile);
+                project.setCreatedBy(previousState.createdBy);
+                project.setToolVersion(previousState.toolVersion);
+                project.setName(previousState.name);
+                project.setLastModified(previousState.lastModified);
+                project.setProjectStart(previousState.projectStart);
+            } else {
+                checkCancelled();
+                readProjectInformation(readRoot(projectFile));
+            }
+            if (state != null) {
+                state.put(projectFile, fingerprint);
+                state.createdBy = project.getCreatedBy();
+                state.toolVersion = project.getToolVersion();
+                state.name = project.getName();
+                state.lastModified = project.getLastModified();
+                state.projectStart = project.getProjectStart();
+            }
+            measurement.stop();
+            progress(ParseReport.PROJECT, 1, 1);
+
+            String installationFile = projectFolder + "/0.xml";
+            measurement = report.start(ParseReport.INSTALLATION, installationFile);
+            fingerprint = fingerprints ? source.getFingerprint(installationFile) : null;
+            Topology topology;
+            if (previousState != null && previousState.isUnchanged(installationFile, fingerprint)) {
+                log.debug("Unchanged since last parse: {}", installationFile);
+                topology = previousState.topology;
+            } else {
+                checkCancelled();
+                topology = new Topology();
+                readInstallation(installationFile, topology);
+            }
+            if (state != null) {
+                state.put(installationFile, fingerprint);
+                state.topology = topology;
+            }
+            this.topology = topology;
+            measurement.stop();
+            progress(ParseReport.INSTALLATION, 1, 1);
+
+            report.setGroupAddressCount(topology.getGroupAddresses().size());
+            report.setDeviceCount(topology.getDeviceCount());
+            report.setComObjectInstanceRefCount(topology.getComObjectInstanceRefCount());
+
+            // read all referenced manufacturer files
+            Map<String, String> comObjRef_to_dpt_map = readManufacturerFiles(topology);
+
+            measurement = report.start(ParseReport.DPT_RESOLUTION);
+            int total = topology.getGroupAddresses().size();
+            int resolved = 0;
+            progress(ParseReport.DPT_RESOLUTION, 0, total);
+            for (GroupAddressContainer gac : topology.getGroupAddresses()) {
+                String dpt = topology.getDpt(gac.getRefId(), comObjRef_to_dpt_map);
+                listener.groupAddress(gac.getAddress(), gac.getName(), dpt);
+                if (++resolved % PROGRESS_INTERVAL == 0) {
+                    checkCancelled();
+                    progress(ParseReport.DPT_RESOLUTION, resolved, total);
+                }
+            }
+            measurement.stop();
+            if (resolved % PROGRESS_INTERVAL != 0) {
+                progress(ParseReport.DPT_RESOLUTION, resolved, total);
+            }
+
+        } catch (JAXBException | SAXException | IOException | XMLStreamException ex) {
+            // reading was interrupted by a cancellation
+            checkCancelled();
+            throw new ParseException("Error parsing", ex);
+        }
+    }
+
+    public de.root1.knxprojparser.Project getProject() {
+        ParseReport.Measurement measurement = report.start(ParseReport.SORT);
+        project.sortGroupAddresses();
+        measurement.stop();
+        return project;
+    }
+    
+    /**
+     * Returns the links between group addresses and the communication objects
+     * of the devices. Built on first call.
+     *
+     * @return link graph, or null if not parsed
+     */
+    public LinkGraph getLinkGraph() {
+        return parsed ? topology.getLinkGraph() : null;
+    }
+
+    public boolean isParsed() {
+        return parsed;
+    };
+    
+    public boolean parserMatch() {
+        if (knxMasterMatches(namespace)) {
+            return true;
+        }
+        log.debug("does not match {}", namespace);
+        return false;
+    }
+
+}
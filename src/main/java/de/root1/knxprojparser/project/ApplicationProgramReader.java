@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2016 Alexander Christian <alex(at)root1.de>. All rights reserved.
+ * 
+ * This file is part of KnxProjParser.
+ *
+ *   KnxProjParser is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   KnxProjParser is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with KnxProjParser.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.root1.knxprojparser.project;
+
+import de.root1.knxprojparser.Utils;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Streaming reader for manufacturer application program files
+ * (M-xxxx/M-xxxx_A-*.xml).
+ * <p>
+ * Only <code>Static/ComObjectTable</code> and <code>Static/ComObjectRefs</code>
+ * are evaluated. All other sections (parameters, load procedures, ...) are
+ * skipped without building objects, and reading stops as soon as
+ * <code>Static</code> is closed, so <code>Dynamic</code> and
+ * <code>Languages</code> are never touched. The reader only looks at local
+ * names and therefore works for all supported project schema versions.
+ *
+ * @author achristian
+ */
+class ApplicationProgramReader {
+
+    private static final Logger log = LoggerFactory.getLogger(ApplicationProgramReader.class);
+
+    private ApplicationProgramReader() {
+    }
+
+    /**
+     * Reads the ComObjectRef to DPT mapping from the given stream. The stream
+     * is not closed.
+     *
+     * @param in stream providing the application program xml
+     * @return {ComObjectRef.Id} -> DPT String, f.i. M-0083_A-0026-14-05BA_O-0_R-11026 -> 1.001
+     * @throws XMLStreamException
+     */
+    static Map<String, String> read(InputStream in) throws XMLStreamException {
+        XMLStreamReader reader = XmlStreams.createReader(in);
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT && reader.getLocalName().equals("Static")) {
+                    return readStatic(reader);
+                }
+            }
+            return new HashMap<>();
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Processes the children of <code>Static</code>. Reader is positioned on
+     * the <code>Static</code> start element and left on its end element.
+     */
+    private static Map<String, String> readStatic(XMLStreamReader reader) throws XMLStreamException {
+
+        /**
+         * {ComObject.Id} -> DPT String as found in xml, f.i. DPST-5-1
+         */
+        Map<String, String> comObjId_to_dpt_map = new HashMap<>();
+
+        /**
+         * {ComObjectRef.Id} -> {ComObjectRef.RefId}, for refs without own DPT
+         */
+        Map<String, String> comObjRef_to_comObj_map = new LinkedHashMap<>();
+
+        Map<String, String> comObjRef_to_dpt_map = new HashMap<>();
+
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            switch (reader.getLocalName()) {
+                case "ComObjectTable":
+                    while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                        if (reader.getLocalName().equals("ComObject")) {
+                            String id = reader.getAttributeValue(null, "Id");
+                            comObjId_to_dpt_map.put(id, reader.getAttributeValue(null, "DatapointType"));
+                            log.debug("Found ComObject id={}", id);
+                        }
+                        XmlStreams.skipElement(reader);
+                    }
+                    break;
+                case "ComObjectRefs":
+                    while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                        if (reader.getLocalName().equals("ComObjectRef")) {
+                            String id = reader.getAttributeValue(null, "Id");
+                            String refId = reader.getAttributeValue(null, "RefId");
+                            String dpt = reader.getAttributeValue(null, "DatapointType");
+
+                            if (dpt != null && !dpt.isEmpty()) {
+                                String convertedDpt = Utils.convertDpt(dpt);
+                                log.debug("ComObjectRef {} has DPT {}", id, convertedDpt);
+                                comObjRef_to_dpt_map.put(id, convertedDpt);
+                            } else {
+                                comObjRef_to_comObj_map.put(id, refId);
+                            }
+                        }
+                        XmlStreams.skipElement(reader);
+                    }
+                    break;
+                default:
+                    XmlStreams.skipElement(reader);
+            }
+        }
+
+        // get DPT from related <ComObject> for all refs without own DPT
+        for (Map.Entry<String, String> entry : comObjRef_to_comObj_map.entrySet()) {
+            String convertedDpt = Utils.convertDpt(comObjId_to_dpt_map.get(entry.getValue()));
+            log.debug("ComObjectRef {} has no DPT. But related ComObject has DPT {}", entry.getKey(), convertedDpt);
+            comObjRef_to_dpt_map.put(entry.getKey(), convertedDpt);
+        }
+        return comObjRef_to_dpt_map;
+    }
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2016 Alexander Christian <alex(at)root1.de>. All rights reserved.
+ * 
+ * This file is part of KnxProjParser.
+ *
+ *   KnxProjParser is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   KnxProjParser is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with KnxProjParser.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.root1.knxprojparser.project;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Project source for an already extracted knx project
+ *
+ * @author achristian
+ */
+class FolderSource extends ProjectSource {
+
+    private final File folder;
+    private List<String> entries;
+
+    FolderSource(File folder) {
+        this.folder = folder;
+    }
+
+    @Override
+    public File getFile() {
+        return folder;
+    }
+
+    @Override
+    public synchronized List<String> getEntries() {
+        if (entries == null) {
+            List<String> list = new ArrayList<>();
+            collect(folder, "", list);
+            Collections.sort(list);
+            entries = Collections.unmodifiableList(list);
+        }
+        return entries;
+    }
+
+    private static void collect(File dir, String path, List<String> list) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                collect(file, path + file.getName() + "/", list);
+            } else {
+                list.add(path + file.getName());
+            }
+        }
+    }
+
+    @Override
+    public InputStream getInputStream(String entry) throws IOException {
+        return new BufferedInputStream(new FileInputStream(new File(folder, entry)));
+    }
+
+    @Override
+    public boolean contains(String entry) {
+        return new File(folder, entry).isFile();
+    }
+
+    @Override
+    public void close() {
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2016 Alexander Christian <alex(at)root1.de>. All rights reserved.
+ * 
+ * This file is part of KnxProjParser.
+ *
+ *   KnxProjParser is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   KnxProjParser is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with KnxProjParser.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.root1.knxprojparser.project;
+
+/**
+ * Receives the content of a project installation file (P-xxxx/0.xml) in a
+ * schema independent way, see {@link InstallationReader}.
+ *
+ * @author achristian
+ */
+interface InstallationHandler {
+
+    /**
+     * Called for each group address
+     *
+     * @param id GroupAddress.Id, f.i. P-0B09-0_GA-6
+     * @param address raw 16 bit group address
+     * @param name name as defined in ETS, may be null
+     * @param datapointType DPT as defined in ETS, f.i. DPST-1-1, may be null
+     */
+    void groupAddress(String id, int address, String name, String datapointType);
+
+    /**
+     * Called for each device instance in the topology
+     *
+     * @param id DeviceInstance.Id, f.i. P-0B09-0_DI-1
+     * @param name name as defined in ETS, may be null
+     * @param individualAddress raw 16 bit individual address (area, line,
+     * member), or -1 if device has no address yet
+     */
+    void device(String id, String name, int individualAddress);
+
+    /**
+     * Called for each ComObjectInstanceRef of a device, before its
+     * connections are reported
+     *
+     * @param comObjInstanceRefId ComObjectInstanceRef.RefId, f.i.
+     * M-0083_A-0026-14-05BA_O-0_R-11026
+     */
+    void comObjectInstanceRef(String comObjInstanceRefId);
+
+    /**
+     * Called for each send/receive connector of a ComObjectInstanceRef. The
+     * connection belongs to the device last reported by
+     * {@link #device(java.lang.String, java.lang.String, int)}.
+     *
+     * @param comObjInstanceRefId ComObjectInstanceRef.RefId, f.i.
+     * M-0083_A-0026-14-05BA_O-0_R-11026
+     * @param datapointType DPT set on the ComObjectInstanceRef, may be null
+     * @param groupAddressRefId id of the connected group address, f.i.
+     * P-0B09-0_GA-6
+     * @param send true for a Send connector, false for Receive
+     */
+    void connection(String comObjInstanceRefId, String datapointType, String groupAddressRefId, boolean send);
+
+}
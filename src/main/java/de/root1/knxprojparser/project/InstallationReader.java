@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2016 Alexander Christian <alex(at)root1.de>. All rights reserved.
+ * 
+ * This file is part of KnxProjParser.
+ *
+ *   KnxProjParser is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   KnxProjParser is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with KnxProjParser.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.root1.knxprojparser.project;
+
+import java.io.InputStream;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Streaming reader for the installation file of a project (P-xxxx/0.xml).
+ * <p>
+ * Reports group addresses from <code>GroupAddresses/GroupRanges</code> and
+ * devices, ComObjectInstanceRefs and their connectors from
+ * <code>Topology/Area/Line/DeviceInstance</code> to an
+ * {@link InstallationHandler}, in document order. Everything else
+ * (parameters, buildings, trades, ...) is skipped without building objects,
+ * so memory use does not depend on the size of the file. Only the first
+ * installation is read. The reader only looks at local names and therefore
+ * works for all supported project schema versions.
+ *
+ * @author achristian
+ */
+class InstallationReader {
+
+    private InstallationReader() {
+    }
+
+    /**
+     * Reads the installation from the given stream. The stream is not
+     * closed.
+     *
+     * @param in stream providing 0.xml
+     * @param handler receives group addresses and connections
+     * @throws XMLStreamException
+     */
+    static void read(InputStream in, InstallationHandler handler) throws XMLStreamException {
+        XMLStreamReader reader = XmlStreams.createReader(in);
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT && reader.getLocalName().equals("Installation")) {
+                    readInstallation(reader, handler);
+                    return;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static void readInstallation(XMLStreamReader reader, InstallationHandler handler) throws XMLStreamException {
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            switch (reader.getLocalName()) {
+                case "Topology":
+                    readTopology(reader, handler);
+                    break;
+                case "GroupAddresses":
+                    while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                        if (reader.getLocalName().equals("GroupRanges")) {
+                            readGroupRanges(reader, handler);
+                        } else {
+                            XmlStreams.skipElement(reader);
+                        }
+                    }
+                    break;
+                default:
+                    XmlStreams.skipElement(reader);
+            }
+        }
+    }
+
+    /**
+     * Processes nested <code>GroupRange</code> and <code>GroupAddress</code>
+     * elements at any depth
+     */
+    private static void readGroupRanges(XMLStreamReader reader, InstallationHandler handler) throws XMLStreamException {
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            switch (reader.getLocalName()) {
+                case "GroupRange":
+                    readGroupRanges(reader, handler);
+                    break;
+                case "GroupAddress":
+                    handler.groupAddress(
+                            reader.getAttributeValue(null, "Id"),
+                            Integer.parseInt(reader.getAttributeValue(null, "Address")),
+                            reader.getAttributeValue(null, "Name"),
+                            reader.getAttributeValue(null, "DatapointType"));
+                    XmlStreams.skipElement(reader);
+                    break;
+                default:
+                    XmlStreams.skipElement(reader);
+            }
+        }
+    }
+
+    private static void readTopology(XMLStreamReader reader, InstallationHandler handler) throws XMLStreamException {
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            if (!reader.getLocalName().equals("Area")) {
+                XmlStreams.skipElement(reader);
+                continue;
+            }
+            int area = parseAddress(reader);
+            while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                if (!reader.getLocalName().equals("Line")) {
+                    XmlStreams.skipElement(reader);
+                    continue;
+                }
+                int line = parseAddress(reader);
+                while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                    if (reader.getLocalName().equals("DeviceInstance")) {
+                        int member = parseAddress(reader);
+                        int individualAddress = area < 0 || line < 0 || member < 0 ? -1 : (area & 0xF) << 12 | (line & 0xF) << 8 | (member & 0xFF);
+                        readDeviceInstance(reader, handler, individualAddress);
+                    } else {
+                        XmlStreams.skipElement(reader);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Address attribute of the current element, or -1 if not set
+     */
+    private static int parseAddress(XMLStreamReader reader) {
+        String address = reader.getAttributeValue(null, "Address");
+        return address == null || address.isEmpty() ? -1 : Integer.parseInt(address);
+    }
+
+    private static void readDeviceInstance(XMLStreamReader reader, InstallationHandler handler, int individualAddress) throws XMLStreamException {
+        handler.device(reader.getAttributeValue(null, "Id"), reader.getAttributeValue(null, "Name"), individualAddress);
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            if (!reader.getLocalName().equals("ComObjectInstanceRefs")) {
+                XmlStreams.skipElement(reader);
+                continue;
+            }
+            while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                if (!reader.getLocalName().equals("ComObjectInstanceRef")) {
+                    XmlStreams.skipElement(reader);
+                    continue;
+                }
+                String refId = reader.getAttributeValue(null, "RefId");
+                String datapointType = reader.getAttributeValue(null, "DatapointType");
+                handler.comObjectInstanceRef(refId);
+                while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                    if (!reader.getLocalName().equals("Connectors")) {
+                        XmlStreams.skipElement(reader);
+                        continue;
+                    }
+                    // Send and Receive
+                    while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                        handler.connection(refId, datapointType, reader.getAttributeValue(null, "GroupAddressRefId"),
+                                reader.getLocalName().equals("Send"));
+                        XmlStreams.skipElement(reader);
+                    }
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,303 @@
+/*
+ * Copyright (C) 2016 Alexander Christian <alex(at)root1.de>. All rights reserved.
+ * 
+ * This file is part of KnxProjParser.
+ *
+ *   KnxProjParser is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   KnxProjParser is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with KnxProjParser.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.root1.knxprojparser.project;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Links between group addresses and the communication objects of devices, as
+ * defined by the send/receive connectors in the topology of a project.
+ * <p>
+ * Stored as compressed sparse rows in int arrays: links are sorted by group
+ * address, so all links of a group address form one range
+ * [{@link #firstLink(int)}, {@link #endLink(int)}), found by binary search.
+ * A second index lists the links of each device. Lookups don't allocate,
+ * except for the convenience methods returning arrays.
+ * <p>
+ * Instances are immutable and can be shared between threads.
+ *
+ * @author achristian
+ */
+public final class LinkGraph {
+
+    /**
+     * distinct group addresses with at least one link, sorted
+     */
+    private final int[] groupAddresses;
+
+    /**
+     * links of groupAddresses[i] are [gaOffsets[i], gaOffsets[i + 1])
+     */
+    private final int[] gaOffsets;
+
+    /**
+     * per link, sorted by group address
+     */
+    private final int[] linkGroupAddress;
+    private final int[] linkDevice;
+    private final int[] linkComObject;
+    private final boolean[] linkSend;
+
+    /**
+     * links of device d are deviceLinks[deviceOffsets[d] .. deviceOffsets[d + 1])
+     */
+    private final int[] deviceOffsets;
+    private final int[] deviceLinks;
+
+    private final String[] deviceIds;
+    private final String[] deviceNames;
+    private final int[] deviceAddresses;
+    private final String[] comObjects;
+
+    private final Map<String, Integer> deviceIndex;
+
+    /**
+     * @param deviceIds DeviceInstance.Id per device
+     * @param deviceNames name per device
+     * @param deviceAddresses individual address per device, or -1
+     * @param comObjects distinct ComObjectInstanceRef.RefIds
+     * @param linkCount number of valid entries in the link arrays
+     * @param links raw group address per link
+     * @param devices device index per link
+     * @param comObjectRefs index in comObjects per link
+     * @param send send flag per link
+     */
+    LinkGraph(String[] deviceIds, String[] deviceNames, int[] deviceAddresses, String[] comObjects,
+            int linkCount, int[] links, int[] devices, int[] comObjectRefs, boolean[] send) {
+        this.deviceIds = deviceIds;
+        this.deviceNames = deviceNames;
+        this.deviceAddresses = deviceAddresses;
+        this.comObjects = comObjects;
+
+        // sort by group address, keep document order for equal addresses
+        long[] keys = new long[linkCount];
+        for (int i = 0; i < linkCount; i++) {
+            keys[i] = (long) links[i] << 32 | i;
+        }
+        Arrays.sort(keys);
+
+        linkGroupAddress = new int[linkCount];
+        linkDevice = new int[linkCount];
+        linkComObject = new int[linkCount];
+        linkSend = new boolean[linkCount];
+        int distinct = 0;
+        for (int i = 0; i < linkCount; i++) {
+            int from = (int) keys[i];
+            linkGroupAddress[i] = links[from];
+            linkDevice[i] = devices[from];
+            linkComObject[i] = comObjectRefs[from];
+            linkSend[i] = send[from];
+            if (i == 0 || linkGroupAddress[i] != linkGroupAddress[i - 1]) {
+                distinct++;
+            }
+        }
+
+        groupAddresses = new int[distinct];
+        gaOffsets = new int[distinct + 1];
+        int ga = -1;
+        for (int i = 0; i < linkCount; i++) {
+            if (i == 0 || linkGroupAddress[i] != linkGroupAddress[i - 1]) {
+                ga++;
+                groupAddresses[ga] = linkGroupAddress[i];
+                gaOffsets[ga] = i;
+            }
+        }
+        gaOffsets[distinct] = linkCount;
+
+        // device index: counting sort of links by device
+        deviceOffsets = new int[deviceIds.length + 1];
+        for (int i = 0; i < linkCount; i++) {
+            deviceOffsets[linkDevice[i] + 1]++;
+        }
+        for (int d = 0; d < deviceIds.length; d++) {
+            deviceOffsets[d + 1] += deviceOffsets[d];
+        }
+        deviceLinks = new int[linkCount];
+        int[] fill = Arrays.copyOf(deviceOffsets, deviceIds.length);
+        for (int i = 0; i < linkCount; i++) {
+            deviceLinks[fill[linkDevice[i]]++] = i;
+        }
+
+        deviceIndex = new HashMap<>(deviceIds.length * 4 / 3 + 1);
+        for (int d = 0; d < deviceIds.length; d++) {
+            deviceIndex.put(deviceIds[d], d);
+        }
+    }
+
+    /**
+     * @return number of links
+     */
+    public int getLinkCount() {
+        return linkGroupAddress.length;
+    }
+
+    /**
+     * @param rawAddress raw 16 bit group address
+     * @return index of the first link of the group address, equals
+     * {@link #endLink(int)} if the group address has no links
+     */
+    public int firstLink(int rawAddress) {
+        int i = Arrays.binarySearch(groupAddresses, rawAddress);
+        return i < 0 ? 0 : gaOffsets[i];
+    }
+
+    /**
+     * @param rawAddress raw 16 bit group address
+     * @return index behind the last link of the group address
+     */
+    public int endLink(int rawAddress) {
+        int i = Arrays.binarySearch(groupAddresses, rawAddress);
+        return i < 0 ? 0 : gaOffsets[i + 1];
+    }
+
+    /**
+     * @param link link index
+     * @return raw group address of the link
+     */
+    public int getLinkGroupAddress(int link) {
+        return linkGroupAddress[link];
+    }
+
+    /**
+     * @param link link index
+     * @return device index of the link
+     */
+    public int getLinkDevice(int link) {
+        return linkDevice[link];
+    }
+
+    /**
+     * @param link link index
+     * @return ComObjectInstanceRef.RefId of the link, f.i.
+     * M-0083_A-0026-14-05BA_O-0_R-11026
+     */
+    public String getLinkComObject(int link) {
+        return comObjects[linkComObject[link]];
+    }
+
+    /**
+     * @param link link index
+     * @return true for a Send connector, false for Receive
+     */
+    public boolean isSend(int link) {
+        return linkSend[link];
+    }
+
+    /**
+     * @return number of devices in the topology, including devices without
+     * links
+     */
+    public int getDeviceCount() {
+        return deviceIds.length;
+    }
+
+    /**
+     * @param id DeviceInstance.Id, f.i. P-0B09-0_DI-1
+     * @return device index, or -1 if not part of the topology
+     */
+    public int indexOfDevice(String id) {
+        Integer index = deviceIndex.get(id);
+        return index == null ? -1 : index;
+    }
+
+    public String getDeviceId(int device) {
+        return deviceIds[device];
+    }
+
+    public String getDeviceName(int device) {
+        return deviceNames[device];
+    }
+
+    /**
+     * @param device device index
+     * @return raw individual address, or -1 if device has no address
+     */
+    public int getDeviceAddress(int device) {
+        return deviceAddresses[device];
+    }
+
+    /**
+     * @param device device index
+     * @return number of links of the device
+     */
+    public int getDeviceLinkCount(int device) {
+        return deviceOffsets[device + 1] - deviceOffsets[device];
+    }
+
+    /**
+     * @param device device index
+     * @param i 0 .. {@link #getDeviceLinkCount(int)} - 1
+     * @return link index, links of a device are sorted by group address
+     */
+    public int getDeviceLink(int device, int i) {
+        return deviceLinks[deviceOffsets[device] + i];
+    }
+
+    /**
+     * Answers "who listens to 1/2/3"
+     *
+     * @param rawAddress raw 16 bit group address
+     * @return indices of all devices with a communication object linked to
+     * the group address, ascending
+     */
+    public int[] getDevices(int rawAddress) {
+        int first = firstLink(rawAddress);
+        int end = endLink(rawAddress);
+        int[] devices = new int[end - first];
+        for (int i = first; i < end; i++) {
+            devices[i - first] = linkDevice[i];
+        }
+        Arrays.sort(devices);
+        return distinct(devices);
+    }
+
+    /**
+     * @param device device index
+     * @return raw addresses of all group addresses linked to the device,
+     * ascending
+     */
+    public int[] getGroupAddresses(int device) {
+        int first = deviceOffsets[device];
+        int end = deviceOffsets[device + 1];
+        int[] addresses = new int[end - first];
+        for (int i = first; i < end; i++) {
+            addresses[i - first] = linkGroupAddress[deviceLinks[i]];
+        }
+        // already sorted, links of a device are in group address order
+        return distinct(addresses);
+    }
+
+    private static int[] distinct(int[] sorted) {
+        int n = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[n - 1]) {
+                sorted[n++] = sorted[i];
+            }
+        }
+        return n == sorted.length ? sorted : Arrays.copyOf(sorted, n);
+    }
+
+    @Override
+    public String toString() {
+        return "LinkGraph{" + "groupAddresses=" + groupAddresses.length + ", devices=" + deviceIds.length + ", links=" + linkGroupAddress.length + '}';
+    }
+
+}
@@ -0,0 +1,327 @@
+/*
+ * Copyright (C) 2016 Alexander Christian <alex(at)root1.de>. All rights reserved.
+ * 
+ * This file is part of KnxProjParser.
+ *
+ *   KnxProjParser is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   KnxProjParser is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with KnxProjParser.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.root1.knxprojparser.project;
+
+import de.root1.knxprojparser.Dpt;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * On-disk cache for the ComObjectRef -> DPT tables of manufacturer
+ * application programs. Application programs are shared by many projects,
+ * so once a file has been read, later parses of any project using the same
+ * application program skip the file entirely.
+ * <p>
+ * Each table is stored in its own file, named by application program ID and
+ * fingerprint of the manufacturer file (see
+ * {@link ProjectSource#getFingerprint(java.lang.String)}), so a changed file
+ * never hits a stale entry. The cache is bounded by size, least recently used
+ * files are deleted first. It can be shared by concurrent parsers and
+ * processes. Cache errors never fail a parse, the file is just read again.
+ * <p>
+ * Optionally the most recently used tables are also kept in memory, which
+ * pays off when many projects are parsed by one process, see
+ * {@link de.root1.knxprojparser.KnxProjParser#parseAll(java.util.Collection, int, de.root1.knxprojparser.BatchListener)}.
+ * A cache without directory is memory only.
+ *
+ * @author achristian
+ */
+public class ManufacturerCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ManufacturerCache.class);
+
+    private static final String SUFFIX = ".dpt";
+    private static final int MAGIC = 0x4B504443; // KPDC
+    private static final int VERSION = 1;
+
+    private final File directory;
+    private final long maxSize;
+    private final int maxMemoryEntries;
+
+    /**
+     * (application program ID + fingerprint) -> table, in access order
+     */
+    private final LinkedHashMap<String, Map<String, String>> memory = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * @param directory cache directory, created if missing
+     * @param maxSize max. total size of all cache files in bytes
+     * @throws IOException if directory cannot be created
+     */
+    public ManufacturerCache(File directory, long maxSize) throws IOException {
+        this(directory, maxSize, 0);
+    }
+
+    /**
+     * @param directory cache directory, created if missing, or null for a
+     * memory only cache
+     * @param maxSize max. total size of all cache files in bytes
+     * @param maxMemoryEntries max. number of tables additionally kept in
+     * memory, 0 for none
+     * @throws IOException if directory cannot be created
+     */
+    public ManufacturerCache(File directory, long maxSize, int maxMemoryEntries) throws IOException {
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create cache directory " + directory.getAbsolutePath());
+        }
+        this.directory = directory;
+        this.maxSize = maxSize;
+        this.maxMemoryEntries = maxMemoryEntries;
+    }
+
+    /**
+     * Creates a cache which only keeps tables in memory
+     *
+     * @param maxMemoryEntries max. number of tables kept in memory
+     */
+    public ManufacturerCache(int maxMemoryEntries) {
+        this.directory = null;
+        this.maxSize = 0;
+        this.maxMemoryEntries = maxMemoryEntries;
+    }
+
+    /**
+     * @return cache directory, or null for a memory only cache
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    public int getMaxMemoryEntries() {
+        return maxMemoryEntries;
+    }
+
+    private File getFile(String applicationProgramId, String fingerprint) {
+        return new File(directory, applicationProgramId + "_" + fingerprint + SUFFIX);
+    }
+
+    /**
+     * @param applicationProgramId f.i. M-0083_A-0026-14-05BA
+     * @param fingerprint fingerprint of the manufacturer file
+     * @return {ComObjectRef.Id} -> DPT String, or null if not cached
+     */
+    Map<String, String> get(String applicationProgramId, String fingerprint) {
+        String key = applicationProgramId + "_" + fingerprint;
+        if (maxMemoryEntries > 0) {
+            synchronized (memory) {
+                Map<String, String> comObjRef_to_dpt_map = memory.get(key);
+                if (comObjRef_to_dpt_map != null) {
+                    return comObjRef_to_dpt_map;
+                }
+            }
+        }
+        if (directory == null) {
+            return null;
+        }
+        Map<String, String> comObjRef_to_dpt_map = readFile(getFile(applicationProgramId, fingerprint));
+        if (comObjRef_to_dpt_map != null) {
+            remember(key, comObjRef_to_dpt_map);
+        }
+        return comObjRef_to_dpt_map;
+    }
+
+    private void remember(String key, Map<String, String> comObjRef_to_dpt_map) {
+        if (maxMemoryEntries <= 0) {
+            return;
+        }
+        synchronized (memory) {
+            memory.put(key, comObjRef_to_dpt_map);
+            Iterator<String> iterator = memory.keySet().iterator();
+            while (memory.size() > maxMemoryEntries) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+    }
+
+    private Map<String, String> readFile(File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unknown format");
+            }
+            // check counts before allocating, each DPT takes at least 2
+            // bytes, each entry at least 6
+            long length = file.length();
+            int dptCount = in.readInt();
+            if (dptCount < 0 || dptCount > length / 2) {
+                throw new IOException("Invalid DPT count " + dptCount);
+            }
+            String[] dpts = new String[dptCount];
+            for (int i = 0; i < dpts.length; i++) {
+                // share the instances of the DPT registry
+                dpts[i] = Dpt.fromId(in.readUTF()).getId();
+            }
+            int count = in.readInt();
+            if (count < 0 || count > length / 6) {
+                throw new IOException("Invalid entry count " + count);
+            }
+            Map<String, String> comObjRef_to_dpt_map = new HashMap<>(count * 4 / 3 + 1);
+            for (int i = 0; i < count; i++) {
+                String id = in.readUTF();
+                int dpt = in.readInt();
+                comObjRef_to_dpt_map.put(id, dpt < 0 ? null : dpts[dpt]);
+            }
+            // mark as recently used
+            file.setLastModified(System.currentTimeMillis());
+            return comObjRef_to_dpt_map;
+        } catch (IOException | RuntimeException ex) {
+            // a broken cache file must never break a parse
+            log.warn("Ignoring unreadable cache file " + file.getAbsolutePath(), ex);
+            file.delete();
+            return null;
+        }
+    }
+
+    /**
+     * Stores a table and evicts least recently used files if cache got too
+     * big.
+     *
+     * @param applicationProgramId f.i. M-0083_A-0026-14-05BA
+     * @param fingerprint fingerprint of the manufacturer file
+     * @param comObjRef_to_dpt_map {ComObjectRef.Id} -> DPT String
+     */
+    void put(String applicationProgramId, String fingerprint, Map<String, String> comObjRef_to_dpt_map) {
+        remember(applicationProgramId + "_" + fingerprint, comObjRef_to_dpt_map);
+        if (directory == null) {
+            return;
+        }
+        File file = getFile(applicationProgramId, fingerprint);
+        File tmp = null;
+        try {
+            tmp = File.createTempFile(applicationProgramId, ".tmp", directory);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+                // DPTs repeat a lot, so they are written once and referenced by index
+                Map<String, Integer> dptIndex = new HashMap<>();
+                List<String> dpts = new ArrayList<>();
+                for (String dpt : comObjRef_to_dpt_map.values()) {
+                    if (dpt != null && !dptIndex.containsKey(dpt)) {
+                        dptIndex.put(dpt, dpts.size());
+                        dpts.add(dpt);
+                    }
+                }
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(dpts.size());
+                for (String dpt : dpts) {
+                    out.writeUTF(dpt);
+                }
+                out.writeInt(comObjRef_to_dpt_map.size());
+                for (Map.Entry<String, String> entry : comObjRef_to_dpt_map.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeInt(entry.getValue() == null ? -1 : dptIndex.get(entry.getValue()));
+                }
+            }
+            try {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            log.debug("Cached {} DPTs of {} in {}", comObjRef_to_dpt_map.size(), applicationProgramId, file.getName());
+        } catch (IOException ex) {
+            log.warn("Cannot write cache file " + file.getAbsolutePath(), ex);
+            if (tmp != null) {
+                tmp.delete();
+            }
+            return;
+        }
+        evict();
+    }
+
+    /**
+     * Deletes least recently used files until total size is within
+     * {@link #getMaxSize()}
+     */
+    synchronized void evict() {
+        if (directory == null) {
+            return;
+        }
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(SUFFIX));
+        if (files == null) {
+            return;
+        }
+        long size = 0;
+        for (File file : files) {
+            size += file.length();
+        }
+        if (size <= maxSize) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (File file : files) {
+            if (size <= maxSize) {
+                break;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                log.debug("Evicted {}", file.getName());
+                size -= length;
+            }
+        }
+    }
+
+    /**
+     * Deletes all cache files and tables kept in memory
+     */
+    public synchronized void clear() {
+        synchronized (memory) {
+            memory.clear();
+        }
+        if (directory == null) {
+            return;
+        }
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(SUFFIX));
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ManufacturerCache{" + "directory=" + directory + ", maxSize=" + maxSize + ", maxMemoryEntries=" + maxMemoryEntries + '}';
+    }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2016 Alexander Christian <alex(at)root1.de>. All rights reserved.
+ * 
+ * This file is part of KnxProjParser.
+ *
+ *   KnxProjParser is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   KnxProjParser is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with KnxProjParser.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.root1.knxprojparser.project;
+
+import java.io.File;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Result of a parse which is kept for an incremental re-parse of the same
+ * project. Holds a manifest with the fingerprint of each file that was read
+ * (see {@link ProjectSource#getFingerprint(java.lang.String)}), together with
+ * what was read from it: project information, topology of the installation
+ * and the DPT table of each manufacturer file. On re-parse only files with a
+ * different fingerprint are read again.
+ *
+ * @author achristian
+ */
+public final class ParseState {
+
+    private final File file;
+    private final String namespace;
+
+    /**
+     * entry -> fingerprint, f.i. P-0B09/0.xml -> 5f3a9c21-1a2b3
+     */
+    private final Map<String, String> manifest = new ConcurrentHashMap<>();
+
+    String createdBy;
+    String toolVersion;
+    String name;
+    Date lastModified;
+    Date projectStart;
+
+    Topology topology;
+
+    /**
+     * manufacturer file -> {ComObjectRef.Id} -> DPT String
+     */
+    final Map<String, Map<String, String>> manufacturerDpts = new ConcurrentHashMap<>();
+
+    ParseState(File file, String namespace) {
+        this.file = file.getAbsoluteFile();
+        this.namespace = namespace;
+    }
+
+    /**
+     * @return project file or folder this state belongs to
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return number of files in the manifest
+     */
+    public int getManifestSize() {
+        return manifest.size();
+    }
+
+    /**
+     * Checks whether this state can be used for an incremental parse of the
+     * given project
+     */
+    boolean matches(File file, String namespace) {
+        return this.file.equals(file.getAbsoluteFile()) && this.namespace.equals(namespace);
+    }
+
+    void put(String entry, String fingerprint) {
+        manifest.put(entry, fingerprint);
+    }
+
+    /**
+     * @param entry f.i. P-0B09/0.xml
+     * @param fingerprint current fingerprint of entry, may be null
+     * @return true, if entry was read with the same fingerprint; false if
+     * no fingerprint is given
+     */
+    boolean isUnchanged(String entry, String fingerprint) {
+        return fingerprint != null && fingerprint.equals(manifest.get(entry));
+    }
+
+    @Override
+    public String toString() {
+        return "ParseState{" + "file=" + file + ", namespace=" + namespace + ", manifest=" + manifest.size() + '}';
+    }
+
+}
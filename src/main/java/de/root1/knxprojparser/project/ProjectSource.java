@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2016 Alexander Christian <alex(at)root1.de>. All rights reserved.
+ * 
+ * This file is part of KnxProjParser.
+ *
+ *   KnxProjParser is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   KnxProjParser is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with KnxProjParser.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.root1.knxprojparser.project;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * Gives access to the files of a knx project, either extracted to a folder or
+ * still packed in the .knxproj zip file. Entries are addressed by their
+ * relative path using '/' as separator, f.i. P-0B09/0.xml
+ *
+ * @author achristian
+ */
+public abstract class ProjectSource implements Closeable {
+
+    /**
+     * Opens the given knx project. Folders are read as they are, files are
+     * read directly from the zip without extracting them.
+     *
+     * @param knxproj .knxproj file or folder with extracted project
+     * @return source for the project
+     * @throws IOException if file cannot be opened
+     */
+    public static ProjectSource open(File knxproj) throws IOException {
+        if (knxproj.isDirectory()) {
+            return new FolderSource(knxproj);
+        }
+        return new ZipSource(knxproj);
+    }
+
+    /**
+     * @return file or folder this source reads from
+     */
+    public abstract File getFile();
+
+    /**
+     * @return relative paths of all files in this project
+     */
+    public abstract List<String> getEntries();
+
+    /**
+     * Opens the given entry for reading. Caller has to close the stream.
+     *
+     * @param entry relative path, f.i. P-0B09/0.xml
+     * @return buffered stream
+     * @throws IOException
+     */
+    public abstract InputStream getInputStream(String entry) throws IOException;
+
+    /**
+     * Returns a fingerprint of the content of the given entry, used as cache
+     * key. Consists of CRC-32 and size of the entry. By default the entry is
+     * read once to calculate the CRC.
+     *
+     * @param entry relative path, f.i. M-0083/M-0083_A-0026-14-05BA.xml
+     * @return fingerprint, f.i. 5f3a9c21-1a2b3
+     * @throws IOException if entry cannot be read
+     */
+    public String getFingerprint(String entry) throws IOException {
+        CRC32 crc = new CRC32();
+        long size = 0;
+        byte[] buffer = new byte[8192];
+        try (InputStream in = getInputStream(entry)) {
+            int numRead;
+            while ((numRead = in.read(buffer)) != -1) {
+                crc.update(buffer, 0, numRead);
+                size += numRead;
+            }
+        }
+        return fingerprint(crc.getValue(), size);
+    }
+
+    static String fingerprint(long crc, long size) {
+        return Long.toHexString(crc) + "-" + Long.toHexString(size);
+    }
+
+    /**
+     * Detects the project schema version by reading the namespace of the root
+     * element of knx_master.xml. Only the root start tag is parsed.
+     *
+     * @return namespace, f.i. http://knx.org/xml/project/14
+     * @throws IOException if knx_master.xml cannot be read
+     */
+    public String getNamespace() throws IOException {
+        try (InputStream in = getInputStream("knx_master.xml")) {
+            return XmlStreams.readRootNamespace(in);
+        } catch (XMLStreamException ex) {
+            throw new IOException("Cannot read namespace of knx_master.xml in " + getFile().getAbsolutePath(), ex);
+        }
+    }
+
+    public boolean contains(String entry) {
+        return getEntries().contains(entry);
+    }
+
+    /**
+     * Returns all top level folders starting with the given prefix
+     *
+     * @param prefix f.i. P-
+     * @return folder names, f.i. P-0B09
+     */
+    public List<String> getFolders(String prefix) {
+        List<String> folders = new ArrayList<>();
+        for (String entry : getEntries()) {
+            int i = entry.indexOf('/');
+            if (i > 0 && entry.startsWith(prefix)) {
+                String folder = entry.substring(0, i);
+                if (!folders.contains(folder)) {
+                    folders.add(folder);
+                }
+            }
+        }
+        return folders;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{" + getFile().getAbsolutePath() + '}';
+    }
+
+}
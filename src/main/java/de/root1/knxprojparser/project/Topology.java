@@ -0,0 +1,272 @@
+/*
+ * Copyright (C) 2016 Alexander Christian <alex(at)root1.de>. All rights reserved.
+ * 
+ * This file is part of KnxProjParser.
+ *
+ *   KnxProjParser is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   KnxProjParser is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with KnxProjParser.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.root1.knxprojparser.project;
+
+import de.root1.knxprojparser.Utils;
+import de.root1.knxprojparser.project.AbstractKnxParser.GroupAddressContainer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Collects group addresses and their connections from the installation file
+ * and resolves the DPT of each group address.
+ *
+ * @author achristian
+ */
+class Topology implements InstallationHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(Topology.class);
+
+    /**
+     * P-0B09-0_GA-6 -> GroupAddressContainer, in document order
+     */
+    private final Map<String, GroupAddressContainer> gaId_to_ga_map = new LinkedHashMap<>();
+
+    /**
+     * P-0B09-0_GA-6 -> "1.001", DPT defined on the group address itself
+     */
+    private final Map<String, String> gaId_to_dpt_map = new HashMap<>();
+
+    /**
+     * P-0B09-0_GA-6 -> M-0083_A-0026-14-05BA_O-0_R-11026, last connected
+     * ComObjectInstanceRef
+     */
+    private final Map<String, String> gaId_to_comObjInstanceRefId_map = new HashMap<>();
+
+    /**
+     * P-0B09-0_GA-6 -> "1.001", DPT defined on a connected
+     * ComObjectInstanceRef
+     */
+    private final Map<String, String> gaId_to_comObjInstanceRefDpt_map = new HashMap<>();
+
+    /**
+     * IDs of application programs used by connected ComObjectInstanceRefs,
+     * f.i. M-0083_A-0026-14-05BA
+     */
+    private final Set<String> referencedApplicationPrograms = new HashSet<>();
+
+    /**
+     * true if at least one connected ComObjectInstanceRef had a RefId which
+     * does not contain the application program ID
+     */
+    private boolean unqualifiedComObjectInstanceRefs;
+
+    private int deviceCount;
+    private int comObjectInstanceRefCount;
+
+    /**
+     * devices in document order, for the link graph
+     */
+    private final List<String> deviceIds = new ArrayList<>();
+    private final List<String> deviceNames = new ArrayList<>();
+    private int[] deviceAddresses = new int[16];
+
+    /**
+     * ComObjectInstanceRef.RefId -> index in comObjects
+     */
+    private final Map<String, Integer> comObjectIndex = new HashMap<>();
+    private final List<String> comObjects = new ArrayList<>();
+
+    /**
+     * connectors in document order: device index, ComObjectInstanceRef
+     * index, group address id and send flag
+     */
+    private int linkCount;
+    private int[] linkDevices = new int[64];
+    private int[] linkComObjects = new int[64];
+    private String[] linkGaIds = new String[64];
+    private boolean[] linkSend = new boolean[64];
+
+    private LinkGraph linkGraph;
+
+    @Override
+    public void groupAddress(String id, int address, String name, String datapointType) {
+        if (log.isDebugEnabled()) {
+            log.debug("GA id={} ga={} name={}", id, Utils.formatGroupAddress(address), name);
+        }
+        gaId_to_ga_map.put(id, new GroupAddressContainer(address, name, id));
+
+        // check if DPT is already known on GA itself
+        if (datapointType != null && !datapointType.isEmpty()) {
+            gaId_to_dpt_map.put(id, Utils.convertDpt(datapointType));
+        }
+    }
+
+    @Override
+    public void device(String id, String name, int individualAddress) {
+        if (deviceCount == deviceAddresses.length) {
+            deviceAddresses = Arrays.copyOf(deviceAddresses, deviceCount * 2);
+        }
+        deviceAddresses[deviceCount] = individualAddress;
+        deviceIds.add(id);
+        deviceNames.add(name);
+        deviceCount++;
+    }
+
+    @Override
+    public void comObjectInstanceRef(String comObjInstanceRefId) {
+        comObjectInstanceRefCount++;
+    }
+
+    @Override
+    public void connection(String comObjInstanceRefId, String datapointType, String groupAddressRefId, boolean send) {
+        log.debug("ComObj {} is connected to {}", comObjInstanceRefId, groupAddressRefId);
+        addLink(comObjInstanceRefId, groupAddressRefId, send);
+        gaId_to_comObjInstanceRefId_map.put(groupAddressRefId, comObjInstanceRefId);
+        addConnectedComObjectInstanceRef(comObjInstanceRefId);
+
+        if (datapointType != null && !datapointType.isEmpty()) {
+            gaId_to_comObjInstanceRefDpt_map.put(groupAddressRefId, Utils.convertDpt(datapointType));
+        }
+    }
+
+    private void addLink(String comObjInstanceRefId, String groupAddressRefId, boolean send) {
+        if (deviceCount == 0) {
+            // connector outside of a device, cannot be linked
+            return;
+        }
+        if (linkCount == linkDevices.length) {
+            int capacity = linkCount * 2;
+            linkDevices = Arrays.copyOf(linkDevices, capacity);
+            linkComObjects = Arrays.copyOf(linkComObjects, capacity);
+            linkGaIds = Arrays.copyOf(linkGaIds, capacity);
+            linkSend = Arrays.copyOf(linkSend, capacity);
+        }
+        Integer comObject = comObjectIndex.get(comObjInstanceRefId);
+        if (comObject == null) {
+            comObject = comObjects.size();
+            comObjectIndex.put(comObjInstanceRefId, comObject);
+            comObjects.add(comObjInstanceRefId);
+        }
+        linkDevices[linkCount] = deviceCount - 1;
+        linkComObjects[linkCount] = comObject;
+        linkGaIds[linkCount] = groupAddressRefId;
+        linkSend[linkCount] = send;
+        linkCount++;
+    }
+
+    /**
+     * Builds the link graph on first call. Connectors to group addresses
+     * which are not defined in the project are left out.
+     *
+     * @return links between group addresses and devices
+     */
+    synchronized LinkGraph getLinkGraph() {
+        if (linkGraph == null) {
+            int[] addresses = new int[linkCount];
+            int[] devices = new int[linkCount];
+            int[] comObjectRefs = new int[linkCount];
+            boolean[] send = new boolean[linkCount];
+            int n = 0;
+            for (int i = 0; i < linkCount; i++) {
+                GroupAddressContainer gac = gaId_to_ga_map.get(linkGaIds[i]);
+                if (gac == null) {
+                    log.debug("Connector to unknown group address {}", linkGaIds[i]);
+                    continue;
+                }
+                addresses[n] = gac.getAddress();
+                devices[n] = linkDevices[i];
+                comObjectRefs[n] = linkComObjects[i];
+                send[n] = linkSend[i];
+                n++;
+            }
+            linkGraph = new LinkGraph(deviceIds.toArray(new String[0]), deviceNames.toArray(new String[0]),
+                    Arrays.copyOf(deviceAddresses, deviceCount), comObjects.toArray(new String[0]),
+                    n, addresses, devices, comObjectRefs, send);
+        }
+        return linkGraph;
+    }
+
+    /**
+     * Remembers the application program of a ComObjectInstanceRef which is
+     * connected to at least one group address. Only those can contribute a DPT.
+     *
+     * @param comObjInstanceRefId f.i. M-0083_A-0026-14-05BA_O-0_R-11026
+     */
+    private void addConnectedComObjectInstanceRef(String comObjInstanceRefId) {
+        int i = comObjInstanceRefId.indexOf("_O-");
+        if (comObjInstanceRefId.startsWith("M-") && i > 0) {
+            referencedApplicationPrograms.add(comObjInstanceRefId.substring(0, i));
+        } else {
+            unqualifiedComObjectInstanceRefs = true;
+        }
+    }
+
+    /**
+     * Checks whether the given manufacturer file needs to be read. Files of
+     * application programs no connected ComObjectInstanceRef refers to are
+     * skipped. If the application program can not be determined for all
+     * references, every file is read.
+     *
+     * @param manufacturerFile f.i. M-0083/M-0083_A-0026-14-05BA.xml
+     * @return true, if file has to be read
+     */
+    boolean isReferenced(String manufacturerFile) {
+        if (unqualifiedComObjectInstanceRefs) {
+            return true;
+        }
+        return referencedApplicationPrograms.contains(AbstractKnxParser.getApplicationProgramId(manufacturerFile));
+    }
+
+    /**
+     * @return all group addresses in document order
+     */
+    Collection<GroupAddressContainer> getGroupAddresses() {
+        return gaId_to_ga_map.values();
+    }
+
+    int getDeviceCount() {
+        return deviceCount;
+    }
+
+    int getComObjectInstanceRefCount() {
+        return comObjectInstanceRefCount;
+    }
+
+    /**
+     * Resolves the DPT of a group address. A DPT set on a connected
+     * ComObjectInstanceRef wins over the one set on the group address, which
+     * wins over the DPT of the last connected ComObjectRef.
+     *
+     * @param gaId f.i. P-0B09-0_GA-6
+     * @param comObjRef_to_dpt_map {ComObjectRef.Id} -> DPT String, from
+     * manufacturer files
+     * @return DPT, f.i. 1.001, or null if unknown
+     */
+    String getDpt(String gaId, Map<String, String> comObjRef_to_dpt_map) {
+        String dpt = gaId_to_comObjInstanceRefDpt_map.get(gaId);
+        if (dpt == null) {
+            dpt = gaId_to_dpt_map.get(gaId);
+        }
+        if (dpt == null) {
+            dpt = comObjRef_to_dpt_map.get(gaId_to_comObjInstanceRefId_map.get(gaId));
+        }
+        return dpt;
+    }
+
+}
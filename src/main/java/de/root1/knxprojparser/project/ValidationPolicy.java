@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2016 Alexander Christian <alex(at)root1.de>. All rights reserved.
+ * 
+ * This file is part of KnxProjParser.
+ *
+ *   KnxProjParser is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   KnxProjParser is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with KnxProjParser.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.root1.knxprojparser.project;
+
+/**
+ * Selects which files of a project are validated against the KNX schema
+ * while parsing. Files exported by ETS are signed, so validation can be
+ * skipped for trusted sources. Validation of a project can be done on demand
+ * later, see {@link AbstractKnxParser#validate()}.
+ *
+ * @author achristian
+ */
+public enum ValidationPolicy {
+
+    /**
+     * Validates project.xml, 0.xml and all manufacturer files which are read
+     */
+    FULL,
+    /**
+     * Validates project.xml and 0.xml, manufacturer files are not validated
+     * (default)
+     */
+    PROJECT_ONLY,
+    /**
+     * Nothing is validated, the schema is not even loaded
+     */
+    NONE
+
+}
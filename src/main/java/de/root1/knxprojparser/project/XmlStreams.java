@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2016 Alexander Christian <alex(at)root1.de>. All rights reserved.
+ * 
+ * This file is part of KnxProjParser.
+ *
+ *   KnxProjParser is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   KnxProjParser is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with KnxProjParser.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.root1.knxprojparser.project;
+
+import java.io.InputStream;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Helpers for the StAX based readers
+ *
+ * @author achristian
+ */
+public class XmlStreams {
+
+    /**
+     * XMLInputFactory is not guaranteed to be thread-safe, so each thread
+     * gets its own instance
+     */
+    private static final ThreadLocal<XMLInputFactory> XML_INPUT_FACTORY = ThreadLocal.withInitial(() -> {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        return factory;
+    });
+
+    private XmlStreams() {
+    }
+
+    /**
+     * Creates a namespace aware stream reader without DTD and external entity
+     * support. Closing the reader does not close the stream.
+     *
+     * @param in stream to read from
+     * @return reader
+     * @throws XMLStreamException
+     */
+    public static XMLStreamReader createReader(InputStream in) throws XMLStreamException {
+        return XML_INPUT_FACTORY.get().createXMLStreamReader(in);
+    }
+
+    /**
+     * Reads the namespace of the root element. Nothing behind the root start
+     * tag is parsed.
+     *
+     * @param in stream to read from
+     * @return namespace uri, or null if root element has no namespace
+     * @throws XMLStreamException
+     */
+    static String readRootNamespace(InputStream in) throws XMLStreamException {
+        XMLStreamReader reader = createReader(in);
+        try {
+            reader.nextTag();
+            return reader.getNamespaceURI();
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Skips the current element including all children. Reader is positioned
+     * on a start element and left on the matching end element.
+     *
+     * @param reader reader
+     * @throws XMLStreamException
+     */
+    static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    depth++;
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    depth--;
+                    break;
+                default:
+            }
+        }
+    }
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2016 Alexander Christian <alex(at)root1.de>. All rights reserved.
+ * 
+ * This file is part of KnxProjParser.
+ *
+ *   KnxProjParser is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   KnxProjParser is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with KnxProjParser.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.root1.knxprojparser.project;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Project source reading directly from the .knxproj zip file. Only the
+ * central directory is read on open, entries are inflated on demand.
+ *
+ * @author achristian
+ */
+class ZipSource extends ProjectSource {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final File file;
+    private final ZipFile zipFile;
+    private final List<String> entries;
+
+    ZipSource(File file) throws IOException {
+        this.file = file;
+        this.zipFile = new ZipFile(file);
+        List<String> list = new ArrayList<>();
+        Enumeration<? extends ZipEntry> enu = zipFile.entries();
+        while (enu.hasMoreElements()) {
+            ZipEntry zipEntry = enu.nextElement();
+            if (!zipEntry.isDirectory()) {
+                list.add(zipEntry.getName().replace('\\', '/'));
+            }
+        }
+        this.entries = Collections.unmodifiableList(list);
+    }
+
+    @Override
+    public File getFile() {
+        return file;
+    }
+
+    @Override
+    public List<String> getEntries() {
+        return entries;
+    }
+
+    ZipEntry getEntry(String entry) {
+        ZipEntry zipEntry = zipFile.getEntry(entry);
+        if (zipEntry == null) {
+            zipEntry = zipFile.getEntry(entry.replace('/', '\\'));
+        }
+        return zipEntry;
+    }
+
+    @Override
+    public InputStream getInputStream(String entry) throws IOException {
+        ZipEntry zipEntry = getEntry(entry);
+        if (zipEntry == null) {
+            throw new FileNotFoundException("Entry " + entry + " not found in " + file.getAbsolutePath());
+        }
+        return new BufferedInputStream(zipFile.getInputStream(zipEntry), BUFFER_SIZE);
+    }
+
+    /**
+     * CRC-32 and size are taken from the central directory, the entry is not
+     * inflated.
+     */
+    @Override
+    public String getFingerprint(String entry) throws IOException {
+        ZipEntry zipEntry = getEntry(entry);
+        if (zipEntry == null) {
+            throw new FileNotFoundException("Entry " + entry + " not found in " + file.getAbsolutePath());
+        }
+        if (zipEntry.getCrc() == -1) {
+            return super.getFingerprint(entry);
+        }
+        return fingerprint(zipEntry.getCrc(), zipEntry.getSize());
+    }
+
+    @Override
+    public boolean contains(String entry) {
+        return getEntry(entry) != null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        zipFile.close();
+    }
+
+}
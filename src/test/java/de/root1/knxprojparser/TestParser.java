@@ -18,16 +18,49 @@
  */
 package de.root1.knxprojparser;
 
+import de.root1.knxprojparser.project.LinkGraph;
+import de.root1.knxprojparser.project.ManufacturerCache;
+import de.root1.knxprojparser.project.Project13;
+import de.root1.knxprojparser.project.ProjectSource;
+import de.root1.knxprojparser.project.ValidationPolicy;
 import de.root1.logging.DebugUtils;
 import de.root1.logging.JulFormatter;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Handler;
 import java.util.logging.Level;
 import java.util.logging.LogManager;
+import java.util.stream.Stream;
 import static org.junit.Assert.*;
 import org.junit.Ignore;
 
@@ -57,6 +90,87 @@ public class TestParser {
     assertEquals("1 Bit needs to convert to 1.001", "1.001", convertDpt);
   }
 
+  @Test
+  public void testDpt() {
+    Dpt dpt = Dpt.parse("DPST-5-1");
+    assertEquals("5.001", dpt.getId());
+    assertEquals(5, dpt.getMainType());
+    assertEquals(1, dpt.getSubType());
+    assertEquals(8, dpt.getBitSize());
+    assertSame(dpt, Dpt.parse("DPST-5-1 DPST-5-4"));
+    assertSame(dpt, Dpt.valueOf(5, 1));
+    assertSame(dpt, Dpt.fromId("5.001"));
+    assertSame(Dpt.valueOf(9, 0), Dpt.parse("DPT-9"));
+    assertSame(Dpt.valueOf(1, 1), Dpt.parse("1 Bit"));
+    assertSame(Dpt.UNKNOWN, Dpt.parse(null));
+    assertEquals("0.000", Utils.convertDpt("4 Byte"));
+    assertSame(Utils.convertDpt("DPST-14-1000"), Utils.convertDpt("DPST-14-1000"));
+    assertEquals("14.1000", Utils.convertDpt("DPST-14-1000"));
+  }
+
+  @Test
+  public void testGroupAddressEncoding() {
+    assertEquals(2404, Utils.parseGroupAddress("1/1/100"));
+    assertEquals("1/1/100", Utils.formatGroupAddress(2404));
+    assertEquals(2404, Utils.parseGroupAddress("1/356"));
+    assertEquals(0xFFFF, Utils.parseGroupAddress("31/7/255"));
+    for (String invalid : new String[]{"", "1/8/0", "1/1/256", "32/0/0", "1//1", "1/1/1/1", "a/b/c"}) {
+      try {
+        Utils.parseGroupAddress(invalid);
+        fail("Expected IllegalArgumentException for " + invalid);
+      } catch (IllegalArgumentException ex) {
+        // expected
+      }
+    }
+
+    Project project = new Project();
+    project.addGroupAddress(Utils.parseGroupAddress("2/0/1"), "b", "1.001");
+    project.addGroupAddress(Utils.parseGroupAddress("1/0/1"), "a", "1.001");
+    project.addGroupAddress(Utils.parseGroupAddress("1/0/0"), null, null);
+    // range queries never reorder an unsorted project
+    assertFalse(project.isSorted());
+    try {
+      project.rangeStart(1);
+      fail("project not sorted");
+    } catch (IllegalStateException ex) {
+      // expected
+    }
+    assertEquals("b", project.getGroupAddressName(0));
+    project.sortGroupAddresses();
+    project.trimToSize();
+    assertEquals(3, project.getGroupAddressCount());
+    assertEquals("1/0/0", project.getGroupAddress(0).getAddress());
+    assertEquals("1/0/0", project.getGroupAddress(0).getName());
+    assertNull(project.getGroupAddressDPT(0));
+    assertEquals("a", project.getGroupAddressName(1));
+    assertEquals("1.001", project.getGroupAddressDPT(2));
+    assertEquals(new GroupAddress("2/0/1", "x", null), project.getGroupaddressList().get(2));
+  }
+
+  @Test
+  public void testETS5_5_1_lookup() throws IOException, FileNotSupportedException, ParserException {
+    File zip = new File(getClass().getResource("/ETS-Samples/ETS5.5.1-KnxProjParser-ExampleProject.knxproj").getFile().replace("%20", " "));
+    KnxProjParser parser = new KnxProjParser();
+    parser.parse(zip);
+    Project project = parser.getProject();
+    for (int i = 0; i < project.getGroupAddressCount(); i++) {
+      assertEquals(i, project.indexOf(project.getRawAddress(i)));
+      assertEquals(i, project.indexOf(project.getGroupAddress(i).getAddress()));
+    }
+    assertEquals(-1, project.indexOf("31/7/254"));
+    assertEquals(-1, project.indexOf("no address"));
+
+    // all addresses in 1/1/x
+    int start = project.rangeStart(1, 1);
+    int end = project.rangeEnd(1, 1);
+    assertTrue(end > start);
+    for (int i = 0; i < project.getGroupAddressCount(); i++) {
+      boolean inRange = project.getGroupAddress(i).getAddress().startsWith("1/1/");
+      assertEquals(inRange, i >= start && i < end);
+    }
+    assertEquals(project.getGroupAddressCount(), project.rangeEnd(31) - project.rangeStart(0));
+  }
+
   @Test
   public void testETS4_2_0() throws IOException, FileNotSupportedException, ParserException {
 
@@ -94,6 +208,466 @@ public class TestParser {
     }
   }
 
+  @Test
+  public void testETS5_5_1_zip() throws IOException, FileNotSupportedException, ParserException {
+    File folder = new File(getClass().getResource("/ETS-Samples/ETS5.5.1-KnxProjParser-ExampleProject").getFile().replace("%20", " "));
+    File zip = new File(getClass().getResource("/ETS-Samples/ETS5.5.1-KnxProjParser-ExampleProject.knxproj").getFile().replace("%20", " "));
+    KnxProjParser folderParser = new KnxProjParser();
+    folderParser.parse(folder);
+    KnxProjParser zipParser = new KnxProjParser();
+    zipParser.parse(zip);
+    List<GroupAddress> folderList = folderParser.getProject().getGroupaddressList();
+    List<GroupAddress> zipList = zipParser.getProject().getGroupaddressList();
+    assertEquals(folderList.size(), zipList.size());
+    for (int i = 0; i < folderList.size(); i++) {
+      assertEquals(folderList.get(i).getAddress(), zipList.get(i).getAddress());
+      assertEquals(folderList.get(i).getDPT(), zipList.get(i).getDPT());
+    }
+  }
+
+  @Test
+  public void testETS5_5_1_parallel() throws IOException, FileNotSupportedException, ParserException {
+    File zip = new File(getClass().getResource("/ETS-Samples/ETS5.5.1-KnxProjParser-ExampleProject.knxproj").getFile().replace("%20", " "));
+    KnxProjParser sequentialParser = new KnxProjParser();
+    sequentialParser.parse(zip);
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      KnxProjParser parallelParser = new KnxProjParser();
+      parallelParser.setExecutor(pool);
+      parallelParser.parse(zip);
+      List<GroupAddress> sequentialList = sequentialParser.getProject().getGroupaddressList();
+      List<GroupAddress> parallelList = parallelParser.getProject().getGroupaddressList();
+      assertEquals(sequentialList.size(), parallelList.size());
+      for (int i = 0; i < sequentialList.size(); i++) {
+        assertEquals(sequentialList.get(i).getAddress(), parallelList.get(i).getAddress());
+        assertEquals(sequentialList.get(i).getDPT(), parallelList.get(i).getDPT());
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testETS5_5_1_manufacturerCache() throws IOException, FileNotSupportedException, ParserException {
+    File zip = new File(getClass().getResource("/ETS-Samples/ETS5.5.1-KnxProjParser-ExampleProject.knxproj").getFile().replace("%20", " "));
+    KnxProjParser uncachedParser = new KnxProjParser();
+    uncachedParser.parse(zip);
+    File dir = Files.createTempDirectory("KnxProjParserCacheTest").toFile();
+    ManufacturerCache cache = new ManufacturerCache(dir, 10 * 1024 * 1024);
+    try {
+      // first run fills the cache, second run reads from it
+      for (int run = 0; run < 2; run++) {
+        KnxProjParser cachedParser = new KnxProjParser();
+        cachedParser.setManufacturerCache(cache);
+        cachedParser.parse(zip);
+        assertTrue(dir.list().length > 0);
+        List<GroupAddress> uncachedList = uncachedParser.getProject().getGroupaddressList();
+        List<GroupAddress> cachedList = cachedParser.getProject().getGroupaddressList();
+        assertEquals(uncachedList.size(), cachedList.size());
+        for (int i = 0; i < uncachedList.size(); i++) {
+          assertEquals(uncachedList.get(i).getAddress(), cachedList.get(i).getAddress());
+          assertEquals(uncachedList.get(i).getDPT(), cachedList.get(i).getDPT());
+        }
+      }
+
+      // corrupted DPT count in all files: cache entries are dropped, parse still works
+      for (File file : dir.listFiles()) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+          channel.write(ByteBuffer.allocate(4).putInt(0, Integer.MAX_VALUE), 8);
+        }
+      }
+      KnxProjParser corruptedParser = new KnxProjParser();
+      corruptedParser.setManufacturerCache(new ManufacturerCache(dir, 10 * 1024 * 1024));
+      corruptedParser.parse(zip);
+      assertEquals(uncachedParser.getProject().getGroupaddressList(), corruptedParser.getProject().getGroupaddressList());
+    } finally {
+      cache.clear();
+      dir.delete();
+    }
+  }
+
+  @Test
+  public void testETS5_5_1_incremental() throws Exception {
+    File folder = new File(getClass().getResource("/ETS-Samples/ETS5.5.1-KnxProjParser-ExampleProject").getFile().replace("%20", " "));
+    Path copy = Files.createTempDirectory("KnxProjParserIncrementalTest");
+    try (Stream<Path> paths = Files.walk(folder.toPath())) {
+      for (Path path : (Iterable<Path>) paths::iterator) {
+        Files.copy(path, copy.resolve(folder.toPath().relativize(path).toString()), StandardCopyOption.REPLACE_EXISTING);
+      }
+    }
+    try {
+      KnxProjParser parser = new KnxProjParser();
+      parser.setIncremental(true);
+      parser.parse(copy.toFile());
+      Project before = parser.getProject();
+      int index = before.indexOf("1/0/1");
+      assertEquals("Schalten.Zentral.Alles", before.getGroupAddressName(index));
+
+      // rename a group address, only 0.xml changes
+      Path installation = copy.resolve("P-0B09/0.xml");
+      String xml = new String(Files.readAllBytes(installation), StandardCharsets.UTF_8);
+      Files.write(installation, xml.replace("Name=\"Schalten.Zentral.Alles\"", "Name=\"Schalten.Zentral.Renamed\"").getBytes(StandardCharsets.UTF_8));
+
+      parser.parse(copy.toFile());
+      Project after = parser.getProject();
+      assertEquals(before.getGroupAddressCount(), after.getGroupAddressCount());
+      assertEquals("Schalten.Zentral.Renamed", after.getGroupAddressName(after.indexOf("1/0/1")));
+      assertEquals(before.getName(), after.getName());
+      for (int i = 0; i < before.getGroupAddressCount(); i++) {
+        assertEquals(before.getRawAddress(i), after.getRawAddress(i));
+        assertEquals(before.getGroupAddressDPT(i), after.getGroupAddressDPT(i));
+      }
+
+      // previous state without recording a new one
+      try (ProjectSource source = ProjectSource.open(copy.toFile())) {
+        Project13 recording = new Project13(source);
+        recording.setIncremental(true);
+        recording.parse();
+        Project13 stateless = new Project13(source);
+        stateless.setPreviousState(recording.getState());
+        stateless.parse();
+        assertEquals(after.getGroupAddressCount(), stateless.getProject().getGroupAddressCount());
+        assertNull(stateless.getState());
+      }
+    } finally {
+      try (Stream<Path> paths = Files.walk(copy)) {
+        paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+      }
+    }
+  }
+
+  @Test
+  public void testETS5_5_1_fingerprint() throws Exception {
+    File zip = new File(getClass().getResource("/ETS-Samples/ETS5.5.1-KnxProjParser-ExampleProject.knxproj").getFile().replace("%20", " "));
+    File copy = File.createTempFile("KnxProjParserFingerprintTest", ".knxproj");
+    File out = File.createTempFile("KnxProjParserFingerprintTest", ".xml");
+    try {
+      Files.copy(zip.toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      String fingerprint = Utils.createFingerprint(copy);
+      assertEquals(fingerprint, Utils.createFingerprint(copy));
+      assertTrue(new KnxProjParser().exportXml(copy, out));
+      assertFalse(new KnxProjParser().exportXml(copy, out));
+
+      // touching the file changes the fingerprint, but not the full checksum
+      String checksum = Utils.createChecksum(copy);
+      assertTrue(copy.setLastModified(copy.lastModified() - 60000));
+      assertNotEquals(fingerprint, Utils.createFingerprint(copy));
+      assertEquals(checksum, Utils.createChecksum(copy));
+      KnxProjParser parser = new KnxProjParser();
+      parser.setFullChecksum(true);
+      assertTrue(parser.exportXml(copy, out));
+      assertFalse(parser.exportXml(copy, out));
+    } finally {
+      copy.delete();
+      out.delete();
+    }
+  }
+
+  @Test
+  public void testETS5_5_1_upToDateExport() throws Exception {
+    File zip = new File(getClass().getResource("/ETS-Samples/ETS5.5.1-KnxProjParser-ExampleProject.knxproj").getFile().replace("%20", " "));
+    File out = File.createTempFile("KnxProjParserUpToDateTest", ".xml");
+    try {
+      KnxProjParser parser = new KnxProjParser();
+      assertTrue(parser.exportXml(zip, out));
+      assertEquals(Utils.createFingerprint(zip), KnxProjXmlService.readChecksum(out));
+
+      // up to date export is not read until the project is asked for
+      KnxProjParser upToDate = new KnxProjParser();
+      assertFalse(upToDate.exportXml(zip, out));
+      KnxProjParser expected = new KnxProjParser();
+      expected.readXml(out);
+      assertEquals(expected.getProject().getGroupAddressCount(), upToDate.getProject().getGroupAddressCount());
+      assertEquals(expected.getProject().getName(), upToDate.getProject().getName());
+
+      assertFalse(upToDate.exportXml(zip, out));
+      out.delete();
+      try {
+        upToDate.getProject();
+        fail("pending export must be read lazily");
+      } catch (IllegalStateException ex) {
+        // expected
+      }
+    } finally {
+      out.delete();
+    }
+  }
+
+  @Test
+  public void testETS5_5_1_truncatedExport() throws Exception {
+    File zip = new File(getClass().getResource("/ETS-Samples/ETS5.5.1-KnxProjParser-ExampleProject.knxproj").getFile().replace("%20", " "));
+    File out = File.createTempFile("KnxProjParserTruncatedTest", ".xml");
+    try {
+      KnxProjParser parser = new KnxProjParser();
+      assertTrue(parser.exportXml(zip, out));
+      int groupAddressCount = parser.getProject().getGroupAddressCount();
+      byte[] content = Files.readAllBytes(out.toPath());
+
+      // checksum survives, end of file is missing
+      Files.write(out.toPath(), Arrays.copyOf(content, content.length / 2));
+      assertNull(KnxProjXmlService.readChecksum(out));
+      assertTrue(new KnxProjParser().exportXml(zip, out));
+      assertArrayEquals(content, Files.readAllBytes(out.toPath()));
+
+      // broken in the middle, parser falls back to the parsed project
+      assertFalse(parser.exportXml(zip, out));
+      byte[] broken = content.clone();
+      Arrays.fill(broken, content.length / 2, content.length / 2 + 16, (byte) '<');
+      Files.write(out.toPath(), broken);
+      assertEquals(groupAddressCount, parser.getProject().getGroupAddressCount());
+      assertEquals(groupAddressCount, parser.getProject().getGroupAddressCount());
+
+      // unreadable export is not taken as up to date again
+      assertTrue(parser.exportXml(zip, out));
+      assertArrayEquals(content, Files.readAllBytes(out.toPath()));
+      assertFalse(parser.exportXml(zip, out));
+    } finally {
+      out.delete();
+    }
+  }
+
+  @Test
+  public void testETS5_5_1_parseAsync() throws Exception {
+    File zip = new File(getClass().getResource("/ETS-Samples/ETS5.5.1-KnxProjParser-ExampleProject.knxproj").getFile().replace("%20", " "));
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      KnxProjParser expected = new KnxProjParser();
+      expected.parse(zip);
+
+      // progress
+      List<String> events = new CopyOnWriteArrayList<>();
+      KnxProjParser parser = new KnxProjParser();
+      parser.setProgressListener((stage, done, total) -> events.add(stage + " " + done + "/" + total));
+      Project project = parser.parseAsync(zip, executor, null).get(30, TimeUnit.SECONDS);
+      assertEquals(expected.getProject().getGroupAddressCount(), project.getGroupAddressCount());
+      int manufacturerFiles = parser.getParseReport().getManufacturerFileCount();
+      int groupAddresses = parser.getParseReport().getGroupAddressCount();
+      assertTrue(events.get(0).startsWith(ParseReport.EXTRACT + " "));
+      assertTrue(events.contains(ParseReport.MANUFACTURER_FILE + " " + manufacturerFiles + "/" + manufacturerFiles));
+      assertEquals(ParseReport.DPT_RESOLUTION + " " + groupAddresses + "/" + groupAddresses, events.get(events.size() - 1));
+
+      // deadline already passed
+      try {
+        new KnxProjParser().parseAsync(zip, executor, Instant.now().minusSeconds(1)).get(30, TimeUnit.SECONDS);
+        fail("deadline passed");
+      } catch (ExecutionException ex) {
+        assertTrue(ex.getCause() instanceof TimeoutException);
+      }
+
+      // cancelled while reading manufacturer files, worker stops
+      events.clear();
+      AtomicReference<CompletableFuture<Project>> future = new AtomicReference<>();
+      CountDownLatch started = new CountDownLatch(1);
+      KnxProjParser cancelled = new KnxProjParser();
+      cancelled.setProgressListener((stage, done, total) -> {
+        events.add(stage);
+        if (stage.equals(ParseReport.MANUFACTURER_FILE)) {
+          future.get().cancel(true);
+        }
+      });
+      future.set(cancelled.parseAsync(zip, task -> executor.execute(() -> {
+        try {
+          started.await();
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        }
+        task.run();
+      }), null));
+      started.countDown();
+      try {
+        future.get().join();
+        fail("parse cancelled");
+      } catch (CancellationException ex) {
+        // expected
+      }
+      // single thread executor: wait for the worker to finish
+      executor.submit(() -> null).get(30, TimeUnit.SECONDS);
+      assertFalse(events.contains(ParseReport.DPT_RESOLUTION));
+      // aborted parse publishes nothing
+      assertNull(cancelled.getParseReport());
+      assertNull(cancelled.getLinkGraph());
+      assertNull(cancelled.getProject());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testBatch() throws IOException, InterruptedException {
+    File samples = new File(getClass().getResource("/ETS-Samples").getFile().replace("%20", " "));
+    Map<File, Integer> counts = new ConcurrentHashMap<>();
+    List<File> failed = new CopyOnWriteArrayList<>();
+    BatchListener listener = new BatchListener() {
+      @Override
+      public void parsed(File file, KnxProjParser parser) {
+        counts.put(file, parser.getProject().getGroupAddressCount());
+      }
+
+      @Override
+      public void failed(File file, Exception ex) {
+        failed.add(file);
+      }
+    };
+    assertEquals(6, new KnxProjParser().parseAll(samples, 3, listener));
+    assertEquals(6, counts.size());
+    assertTrue(failed.isEmpty());
+
+    // a broken project does not stop the batch
+    File missing = new File(samples, "missing.knxproj");
+    File zip = new File(samples, "ETS5.5.1-KnxProjParser-ExampleProject.knxproj");
+    counts.clear();
+    assertEquals(1, new KnxProjParser().parseAll(Arrays.asList(missing, zip), 2, listener));
+    assertEquals(Collections.singletonList(missing), failed);
+    assertTrue(counts.get(zip) > 0);
+  }
+
+  @Test
+  public void testWatcher() throws IOException, InterruptedException {
+    File samples = new File(getClass().getResource("/ETS-Samples").getFile().replace("%20", " "));
+    File dir = Files.createTempDirectory("KnxProjParserWatcherTest").toFile();
+    File file = new File(dir, "project.knxproj");
+    BlockingQueue<File> parsed = new LinkedBlockingQueue<>();
+    try (ProjectWatcher watcher = new ProjectWatcher(dir)) {
+      watcher.setDebounceMillis(100);
+      watcher.setListener(new BatchListener() {
+        @Override
+        public void parsed(File f, KnxProjParser parser) {
+          parsed.add(f);
+        }
+
+        @Override
+        public void failed(File f, Exception ex) {
+        }
+      });
+      watcher.start();
+      Files.copy(new File(samples, "ETS4.2.0-KnxProjParser-ExampleProject.knxproj").toPath(), file.toPath());
+      assertEquals(file, parsed.poll(30, TimeUnit.SECONDS));
+      Project first = watcher.getProject(file);
+      assertNotNull(first);
+
+      Files.copy(new File(samples, "ETS5.5.1-KnxProjParser-ExampleProject.knxproj").toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      assertEquals(file, parsed.poll(30, TimeUnit.SECONDS));
+      assertNotSame(first, watcher.getProject(file));
+      assertTrue(watcher.getProject(file).getToolVersion().startsWith("5.5."));
+    } finally {
+      file.delete();
+      dir.delete();
+    }
+  }
+
+  @Test
+  public void testETS5_5_1_validationPolicy() throws IOException, FileNotSupportedException, ParserException {
+    File folder = new File(getClass().getResource("/ETS-Samples/ETS5.5.1-KnxProjParser-ExampleProject").getFile().replace("%20", " "));
+    assertTrue(new KnxProjParser().validate(folder).isEmpty());
+
+    Path copy = Files.createTempDirectory("KnxProjParserValidationTest");
+    try (Stream<Path> paths = Files.walk(folder.toPath())) {
+      for (Path path : (Iterable<Path>) paths::iterator) {
+        Files.copy(path, copy.resolve(folder.toPath().relativize(path).toString()), StandardCopyOption.REPLACE_EXISTING);
+      }
+    }
+    try {
+      // unknown attribute, not allowed by schema
+      Path installation = copy.resolve("P-0B09/0.xml");
+      String xml = new String(Files.readAllBytes(installation), StandardCharsets.UTF_8);
+      Files.write(installation, xml.replace("Name=\"Schalten.Zentral.Alles\"", "Name=\"Schalten.Zentral.Alles\" Unknown=\"1\"").getBytes(StandardCharsets.UTF_8));
+
+      List<String> errors = new KnxProjParser().validate(copy.toFile());
+      assertEquals(1, errors.size());
+      assertTrue(errors.get(0).startsWith("P-0B09/0.xml:"));
+      try {
+        new KnxProjParser().parse(copy.toFile());
+        fail("invalid 0.xml must fail with default policy");
+      } catch (ParserException ex) {
+        // expected
+      }
+      KnxProjParser parser = new KnxProjParser();
+      parser.setValidationPolicy(ValidationPolicy.NONE);
+      parser.parse(copy.toFile());
+      KnxProjParser fullParser = new KnxProjParser();
+      fullParser.setValidationPolicy(ValidationPolicy.FULL);
+      fullParser.parse(folder);
+      assertEquals(fullParser.getProject().getGroupAddressCount(), parser.getProject().getGroupAddressCount());
+    } finally {
+      try (Stream<Path> paths = Files.walk(copy)) {
+        paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+      }
+    }
+  }
+
+  @Test
+  public void testETS5_5_1_listener() throws IOException, FileNotSupportedException, ParserException {
+    File zip = new File(getClass().getResource("/ETS-Samples/ETS5.5.1-KnxProjParser-ExampleProject.knxproj").getFile().replace("%20", " "));
+    KnxProjParser parser = new KnxProjParser();
+    parser.parse(zip);
+    Project project = parser.getProject();
+
+    List<GroupAddress> streamed = new ArrayList<>();
+    KnxProjParser streamingParser = new KnxProjParser();
+    streamingParser.parse(zip, (address, name, dpt) -> streamed.add(new GroupAddress(address, name, dpt)));
+    assertEquals(0, streamingParser.getProject().getGroupAddressCount());
+    assertEquals(project.getName(), streamingParser.getProject().getName());
+    assertEquals(project.getGroupAddressCount(), streamed.size());
+    for (GroupAddress ga : streamed) {
+      int index = project.indexOf(ga.getRawAddress());
+      assertEquals(project.getGroupAddressName(index), ga.getName());
+      assertEquals(project.getGroupAddressDPT(index), ga.getDPT());
+    }
+  }
+
+  @Test
+  public void testETS5_5_1_linkGraph() throws IOException, FileNotSupportedException, ParserException {
+    File zip = new File(getClass().getResource("/ETS-Samples/ETS5.5.1-KnxProjParser-ExampleProject.knxproj").getFile().replace("%20", " "));
+    KnxProjParser parser = new KnxProjParser();
+    parser.parse(zip);
+    LinkGraph graph = parser.getLinkGraph();
+    assertEquals(4, graph.getDeviceCount());
+
+    // 1/1/0 is connected to the push button DI-1 and the actuator DI-3
+    int[] devices = graph.getDevices(Utils.parseGroupAddress("1/1/0"));
+    assertEquals(2, devices.length);
+    int actuator = graph.indexOfDevice("P-0B09-0_DI-3");
+    assertEquals(actuator, devices[1]);
+    assertEquals((1 << 12) | (1 << 8) | 3, graph.getDeviceAddress(actuator));
+    assertEquals(9, graph.getGroupAddresses(actuator).length);
+    assertEquals(0, graph.getDevices(Utils.parseGroupAddress("31/7/255")).length);
+
+    int links = 0;
+    for (int device = 0; device < graph.getDeviceCount(); device++) {
+      for (int i = 0; i < graph.getDeviceLinkCount(device); i++) {
+        int link = graph.getDeviceLink(device, i);
+        assertEquals(device, graph.getLinkDevice(link));
+        int ga = graph.getLinkGroupAddress(link);
+        assertTrue(graph.firstLink(ga) <= link && link < graph.endLink(ga));
+        assertTrue(graph.isSend(link));
+        links++;
+      }
+    }
+    assertEquals(graph.getLinkCount(), links);
+  }
+
+  @Test
+  public void testETS5_5_1_parseReport() throws IOException, FileNotSupportedException, ParserException {
+    File zip = new File(getClass().getResource("/ETS-Samples/ETS5.5.1-KnxProjParser-ExampleProject.knxproj").getFile().replace("%20", " "));
+    KnxProjParser parser = new KnxProjParser();
+    parser.parse(zip);
+    ParseReport report = parser.getParseReport();
+    log.info("{}", report);
+    assertEquals(parser.getProject().getGroupaddressList().size(), report.getGroupAddressCount());
+    assertTrue(report.getDeviceCount() > 0);
+    assertTrue(report.getComObjectInstanceRefCount() > 0);
+    assertTrue(report.getManufacturerFileCount() > 0);
+    assertTrue(report.getWallTimeNanos() > 0);
+    assertTrue(report.getWallTimeNanos(ParseReport.INSTALLATION) > 0);
+    int manufacturerStages = 0;
+    for (ParseReport.Stage stage : report.getStages()) {
+      if (stage.getName().equals(ParseReport.MANUFACTURER_FILE)) {
+        manufacturerStages++;
+      }
+    }
+    assertEquals(report.getManufacturerFileCount(), manufacturerStages);
+  }
+
   @Test
   public void testETS4_2_0_export() throws IOException, FileNotSupportedException, ParserException {
     File f = new File(getClass().getResource("/ETS-Samples/ETS4.2.0-KnxProjParser-ExampleProject").getFile().replace("%20", " "));
@@ -103,6 +677,85 @@ public class TestParser {
     out.delete();
   }
 
+  @Test
+  public void testETS5_5_1_snapshot() throws IOException, FileNotSupportedException, ParserException {
+    File zip = new File(getClass().getResource("/ETS-Samples/ETS5.5.1-KnxProjParser-ExampleProject.knxproj").getFile().replace("%20", " "));
+    File xml = File.createTempFile("KnxProjParserSnapshotTest", ".xml");
+    File snapshot = File.createTempFile("KnxProjParserSnapshotTest", ".snapshot");
+    snapshot.delete();
+    try {
+      KnxProjParser parser = new KnxProjParser();
+      assertTrue(parser.exportSnapshot(zip, snapshot));
+      assertTrue(parser.exportXml(zip, xml));
+      assertFalse(parser.exportSnapshot(zip, snapshot));
+
+      KnxProjParser xmlParser = new KnxProjParser();
+      xmlParser.readXml(xml);
+      KnxProjParser snapshotParser = new KnxProjParser();
+      snapshotParser.readSnapshot(snapshot);
+      Project xmlProject = xmlParser.getProject();
+      Project snapshotProject = snapshotParser.getProject();
+      xmlProject.sortGroupAddresses();
+      assertEquals(xmlProject.getName(), snapshotProject.getName());
+      assertEquals(xmlProject.getLastModified(), snapshotProject.getLastModified());
+      assertEquals(xmlProject.getGroupAddressCount(), snapshotProject.getGroupAddressCount());
+      for (int i = 0; i < xmlProject.getGroupAddressCount(); i++) {
+        assertEquals(xmlProject.getRawAddress(i), snapshotProject.getRawAddress(i));
+        assertEquals(xmlProject.getGroupAddressName(i), snapshotProject.getGroupAddressName(i));
+        assertEquals(xmlProject.getGroupAddressDPT(i), snapshotProject.getGroupAddressDPT(i));
+      }
+
+      // corrupted string index of first record: not a snapshot, export forces a new one
+      try (FileChannel channel = FileChannel.open(snapshot.toPath(), StandardOpenOption.WRITE)) {
+        channel.write(ByteBuffer.allocate(4).putInt(0, Integer.MAX_VALUE), 56);
+      }
+      try {
+        ProjectSnapshot.open(snapshot);
+        fail("corrupted snapshot");
+      } catch (IOException ex) {
+        // expected
+      }
+      assertTrue(new KnxProjParser().exportSnapshot(zip, snapshot));
+      assertEquals(snapshotProject.getGroupAddressCount(), ProjectSnapshot.read(snapshot).toProject().getGroupAddressCount());
+    } finally {
+      xml.delete();
+      snapshot.delete();
+    }
+  }
+
+  @Test
+  public void testETS5_5_1_exportWriter() throws Exception {
+    File zip = new File(getClass().getResource("/ETS-Samples/ETS5.5.1-KnxProjParser-ExampleProject.knxproj").getFile().replace("%20", " "));
+    File xml = File.createTempFile("KnxProjParserWriterTest", ".xml");
+    File jaxb = File.createTempFile("KnxProjParserWriterTest", ".jaxb.xml");
+    File snapshot = File.createTempFile("KnxProjParserWriterTest", ".snapshot");
+    xml.delete();
+    snapshot.delete();
+    try {
+      // streamed export must match what JAXB writes for the same content
+      KnxProjParser parser = new KnxProjParser();
+      assertTrue(parser.exportSnapshot(zip, snapshot));
+      assertTrue(parser.exportXml(zip, xml));
+      KnxProjXmlService.write(jaxb, ProjectSnapshot.open(snapshot).toKnxProj());
+      assertArrayEquals(Files.readAllBytes(jaxb.toPath()), Files.readAllBytes(xml.toPath()));
+
+      // escaping
+      String name = "A&B <C> \"D\" 'E' F\r\nG \u00e4\u00df\u20ac";
+      Project project = new Project();
+      project.addGroupAddress(Utils.parseGroupAddress("1/2/3"), name, "1.001");
+      project.addGroupAddress(Utils.parseGroupAddress("1/2/4"), name, "0.000");
+      KnxProjXmlWriter.write(xml, KnxProjXmlService.read(jaxb), project);
+      de.root1.schema.knxproj._1.EtsDefined etsDefined = KnxProjXmlService.read(xml).getEtsDefined();
+      assertEquals(name, etsDefined.getGroupAddresses().getGroupAddress().get(0).getName());
+      assertEquals("", etsDefined.getIncompleteAddresses().getGroupAddress().get(0).getDPT());
+      assertEquals(name, etsDefined.getIncompleteAddresses().getGroupAddress().get(0).getName());
+    } finally {
+      xml.delete();
+      jaxb.delete();
+      snapshot.delete();
+    }
+  }
+
   @Test
   public void testMain() throws IOException, FileNotSupportedException, ParserException {
     File f = new File(getClass().getResource("/ETS-Samples/ETS4.2.0-KnxProjParser-ExampleProject").getFile().replace("%20", " "));